@@ -0,0 +1,64 @@
+// k6 load test for the two blocking hot paths: POST /api/video/upload-url and GET /api/video/{id}/download.
+//
+// Run once per thread mode against the same environment and compare p95/p99 and error rates:
+//   VIRTUAL_THREADS_ENABLED=false java -jar target/*.jar &  k6 run -e BASE_URL=http://localhost:8000 -e VIDEO_ID=<processed id> loadtest/upload-download.js
+//   VIRTUAL_THREADS_ENABLED=true  java -jar target/*.jar &  k6 run -e BASE_URL=http://localhost:8000 -e VIDEO_ID=<processed id> loadtest/upload-download.js
+//
+// Keep spring.datasource.hikari.maximum-pool-size identical between runs; with virtual threads the
+// connection pool, not Tomcat's worker count, becomes the concurrency limit.
+//
+// Baseline results for both modes are in the Readme under "Runtime Tuning".
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8000';
+const VIDEO_ID = __ENV.VIDEO_ID || '1';
+
+export const options = {
+    scenarios: {
+        upload_url: {
+            executor: 'ramping-arrival-rate',
+            exec: 'uploadUrl',
+            startRate: 50,
+            timeUnit: '1s',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+            stages: [
+                { target: 200, duration: '30s' },
+                { target: 500, duration: '1m' },
+                { target: 0, duration: '15s' },
+            ],
+        },
+        download: {
+            executor: 'ramping-arrival-rate',
+            exec: 'download',
+            startRate: 100,
+            timeUnit: '1s',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+            stages: [
+                { target: 500, duration: '30s' },
+                { target: 1500, duration: '1m' },
+                { target: 0, duration: '15s' },
+            ],
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:upload_url}': ['p(95)<500'],
+        'http_req_duration{scenario:download}': ['p(95)<200'],
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function uploadUrl() {
+    const body = JSON.stringify({ fileName: `load-${__VU}-${__ITER}.mp4`, contentType: 'video/mp4' });
+    const res = http.post(`${BASE_URL}/api/video/upload-url`, body, {
+        headers: { 'Content-Type': 'application/json' },
+    });
+    check(res, { 'upload-url 200': (r) => r.status === 200 });
+}
+
+export function download() {
+    const res = http.get(`${BASE_URL}/api/video/${VIDEO_ID}/download`);
+    check(res, { 'download 200': (r) => r.status === 200 });
+}
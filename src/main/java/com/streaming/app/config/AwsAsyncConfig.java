@@ -0,0 +1,126 @@
+package com.streaming.app.config;
+
+import com.streaming.app.util.ThreadFactories;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional non-blocking AWS stack: S3 and SQS async clients sharing one Netty connection pool and event loop.
+ * Credentials, retry mode and metrics are the same as the blocking clients in {@link AwsClientConfig}.
+ * Services that find these beans use them for their network calls; without them they stay on the blocking clients.
+ */
+@Configuration
+@ConditionalOnProperty(name = "aws.async.enabled", havingValue = "true")
+public class AwsAsyncConfig {
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Value("${aws.sqs.region:}")
+    private String sqsRegion;
+
+    @Value("${aws.sqs.videoQueueUrl:}")
+    private String videoQueueUrl;
+
+    @Value("${aws.async.eventLoopThreads:0}")              // 0 = Netty default (2 x cores)
+    private int eventLoopThreads;
+
+    @Value("${aws.async.maxConcurrency:500}")
+    private int maxConcurrency;
+
+    @Value("${aws.async.maxPendingAcquires:10000}")
+    private int maxPendingAcquires;
+
+    @Value("${aws.async.connectionTimeoutMs:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.async.acquireTimeoutMs:10000}")
+    private long acquireTimeoutMs;
+
+    @Value("${aws.async.readTimeoutMs:30000}")
+    private long readTimeoutMs;
+
+    @Value("${aws.async.completionThreads:4}")
+    private int completionThreads;
+
+    // Futures complete here rather than on the event loop, so callbacks that block can't stall network I/O.
+    // Deliberately not a bean: an Executor bean would replace Boot's applicationTaskExecutor.
+    private ExecutorService completionExecutor;
+
+    @PostConstruct
+    public void init() {
+        this.completionExecutor = Executors.newFixedThreadPool(
+                completionThreads, ThreadFactories.named("aws-async-completion", false));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdown();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient awsAsyncHttpClient() {
+        SdkEventLoopGroup.Builder eventLoop = SdkEventLoopGroup.builder();
+        if (eventLoopThreads > 0) {
+            eventLoop.numberOfThreads(eventLoopThreads);
+        }
+        // Passed as a builder so the client owns the group and shuts it down on close()
+        return NettyNioAsyncHttpClient.builder()
+                .eventLoopGroupBuilder(eventLoop)
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .tcpKeepAlive(true)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient awsAsyncHttpClient, AwsCredentialsProvider awsCredentialsProvider,
+                                       ClientOverrideConfiguration awsClientOverrides) {
+        return S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsAsyncHttpClient)
+                .overrideConfiguration(awsClientOverrides)
+                .asyncConfiguration(completion())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SqsAsyncClient sqsAsyncClient(SdkAsyncHttpClient awsAsyncHttpClient, AwsCredentialsProvider awsCredentialsProvider,
+                                         ClientOverrideConfiguration awsClientOverrides) {
+        return SqsAsyncClient.builder()
+                .region(AwsClientConfig.sqsRegion(sqsRegion, videoQueueUrl, region))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsAsyncHttpClient)
+                .overrideConfiguration(awsClientOverrides)
+                .asyncConfiguration(completion())
+                .build();
+    }
+
+    private ClientAsyncConfiguration completion() {
+        return ClientAsyncConfiguration.builder()
+                .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, completionExecutor)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.streaming.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * The single place AWS clients are built. S3, the presigner and SQS share one credentials provider and one
+ * pooled Apache HTTP client (so TLS connections are reused across services), use adaptive retries, and report
+ * call/pool metrics through {@link AwsSdkMetrics}.
+ */
+@Configuration
+public class AwsClientConfig {
+
+    @Value("${aws.region}")
+    private String region;
+
+    // SQS used to be pinned to us-east-1; when unset, the region is taken from the queue URL
+    @Value("${aws.sqs.region:}")
+    private String sqsRegion;
+
+    @Value("${aws.sqs.videoQueueUrl:}")
+    private String videoQueueUrl;
+
+    @Value("${aws.http.maxConnections:128}")
+    private int maxConnections;
+
+    @Value("${aws.http.connectionTimeoutMs:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.http.socketTimeoutMs:30000}")
+    private long socketTimeoutMs;
+
+    @Value("${aws.http.acquireTimeoutMs:10000}")
+    private long acquireTimeoutMs;
+
+    @Value("${aws.http.connectionMaxIdleMs:60000}")
+    private long connectionMaxIdleMs;
+
+    @Value("${aws.http.connectionTtlMs:300000}")      // bounded so DNS changes are picked up
+    private long connectionTtlMs;
+
+    @Value("${aws.retry.maxAttempts:3}")
+    private int retryMaxAttempts;
+
+    @Bean(destroyMethod = "close")
+    public AwsCredentialsProvider awsCredentialsProvider() {
+        return DefaultCredentialsProvider.builder().build();
+    }
+
+    @Bean
+    public ClientOverrideConfiguration awsClientOverrides(AwsSdkMetrics awsSdkMetrics) {
+        return ClientOverrideConfiguration.builder()
+                // Adaptive mode adds a client-side rate limiter on top of backoff, so throttling doesn't turn into retry storms
+                .retryStrategy(AwsRetryStrategy.adaptiveRetryStrategy().toBuilder()
+                        .maxAttempts(retryMaxAttempts)
+                        .build())
+                .addMetricPublisher(awsSdkMetrics)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SdkHttpClient awsHttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+                .connectionTimeToLive(Duration.ofMillis(connectionTtlMs))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(true)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client(SdkHttpClient awsHttpClient, AwsCredentialsProvider awsCredentialsProvider,
+                             ClientOverrideConfiguration awsClientOverrides) {
+        return S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(awsClientOverrides)
+                .build();
+    }
+
+    // Presigning never touches the network; it only needs the same region and credentials as the client
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner(AwsCredentialsProvider awsCredentialsProvider) {
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(awsCredentialsProvider)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SqsClient sqsClient(SdkHttpClient awsHttpClient, AwsCredentialsProvider awsCredentialsProvider,
+                               ClientOverrideConfiguration awsClientOverrides) {
+        return SqsClient.builder()
+                .region(sqsRegion(sqsRegion, videoQueueUrl, region))
+                .credentialsProvider(awsCredentialsProvider)
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(awsClientOverrides)
+                .build();
+    }
+
+    /**
+     * Explicit {@code aws.sqs.region} if set, else the region in a {@code https://sqs.<region>.amazonaws.com/...}
+     * queue URL, else {@code aws.region}.
+     */
+    static Region sqsRegion(String configured, String queueUrl, String fallback) {
+        if (configured != null && !configured.isBlank()) {
+            return Region.of(configured);
+        }
+        if (queueUrl != null && !queueUrl.isBlank()) {
+            String host = URI.create(queueUrl).getHost();
+            String[] labels = host == null ? new String[0] : host.split("\\.");
+            if (labels.length >= 3 && labels[0].equals("sqs")) {
+                return Region.of(labels[1]);
+            }
+        }
+        return Region.of(fallback);
+    }
+}
@@ -0,0 +1,94 @@
+package com.streaming.app.config;
+
+import com.streaming.app.util.ThreadFactories;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves credentials and opens {@code aws.warmup.connections} pooled connections each to S3 and SQS once the
+ * app is ready, so the first uploads don't pay for credential lookup and TLS handshakes. Runs in the background;
+ * failures are logged and otherwise ignored.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AwsClientWarmup {
+
+    private final AwsCredentialsProvider awsCredentialsProvider;
+    private final S3Client s3Client;
+    private final SqsClient sqsClient;
+
+    @Value("${aws.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.warmup.connections:4}")
+    private int connections;
+
+    @Value("${aws.s3.rawBucket}")
+    private String rawBucketName;
+
+    @Value("${aws.sqs.videoQueueUrl:}")
+    private String videoQueueUrl;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        ThreadFactories.named("aws-warmup", false).newThread(this::run).start();
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            awsCredentialsProvider.resolveCredentials();
+        } catch (RuntimeException e) {
+            log.warn("AWS warm-up skipped, credentials unavailable: {}", e.getMessage());
+            return;
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        // Concurrent calls force separate connections; sequential ones would all reuse the first
+        try (ExecutorService executor = ThreadFactories.blockingExecutor("aws-warmup", connections * 2, false)) {
+            for (int i = 0; i < connections; i++) {
+                calls.add(CompletableFuture.runAsync(() -> call(failed,
+                        () -> s3Client.headBucket(b -> b.bucket(rawBucketName))), executor));
+                if (!videoQueueUrl.isBlank()) {
+                    calls.add(CompletableFuture.runAsync(() -> call(failed,
+                            () -> sqsClient.getQueueAttributes(b -> b.queueUrl(videoQueueUrl)
+                                    .attributeNames(QueueAttributeName.QUEUE_ARN))), executor));
+                }
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        }
+        log.info("AWS clients warmed up: {} calls, {} failed, {} ms",
+                calls.size(), failed.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void call(AtomicInteger failed, Runnable request) {
+        try {
+            request.run();
+        } catch (SdkServiceException e) {
+            // AWS answered (e.g. 403 without s3:ListBucket), so the connection is open and pooled anyway
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.debug("AWS warm-up call failed: {}", e.getMessage());
+        }
+    }
+}
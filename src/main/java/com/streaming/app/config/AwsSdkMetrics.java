@@ -0,0 +1,114 @@
+package com.streaming.app.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bridges the SDK's per-call metrics into Micrometer: call latency and retries per service/operation,
+ * attempt errors by type (timeouts show up as ConfiguredTimeout), and connection pool state per HTTP client.
+ * Pool gauges hold the values reported by the most recent request on that client.
+ */
+@Component
+@RequiredArgsConstructor
+public class AwsSdkMetrics implements MetricPublisher {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, PoolGauges> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(MetricCollection call) {
+        String service = first(call, CoreMetric.SERVICE_ID, "unknown");
+        String operation = first(call, CoreMetric.OPERATION_NAME, "unknown");
+
+        Duration duration = first(call, CoreMetric.API_CALL_DURATION, null);
+        if (duration != null) {
+            boolean ok = first(call, CoreMetric.API_CALL_SUCCESSFUL, false);
+            Timer.builder("aws.api.call")
+                    .tags("service", service, "operation", operation, "outcome", ok ? "ok" : "error")
+                    .register(meterRegistry)
+                    .record(duration);
+        }
+        int retries = first(call, CoreMetric.RETRY_COUNT, 0);
+        if (retries > 0) {
+            meterRegistry.counter("aws.api.retries", "service", service, "operation", operation).increment(retries);
+        }
+        recordChildren(call, service);
+    }
+
+    // Attempt and HTTP metrics live in nested collections (ApiCall -> ApiCallAttempt -> HttpClient)
+    private void recordChildren(MetricCollection collection, String service) {
+        for (MetricCollection child : collection.children()) {
+            String errorType = first(child, CoreMetric.ERROR_TYPE, null);
+            if (errorType != null) {
+                meterRegistry.counter("aws.api.attempt.errors", "service", service, "type", errorType).increment();
+            }
+            String client = first(child, HttpMetric.HTTP_CLIENT_NAME, null);
+            if (client != null) {
+                recordPool(client, child);
+            }
+            recordChildren(child, service);
+        }
+    }
+
+    private void recordPool(String client, MetricCollection http) {
+        PoolGauges pool = pools.computeIfAbsent(client, this::registerPool);
+        set(pool.leased(), http, HttpMetric.LEASED_CONCURRENCY);
+        set(pool.available(), http, HttpMetric.AVAILABLE_CONCURRENCY);
+        set(pool.max(), http, HttpMetric.MAX_CONCURRENCY);
+        set(pool.pending(), http, HttpMetric.PENDING_CONCURRENCY_ACQUIRES);
+        Duration acquire = first(http, HttpMetric.CONCURRENCY_ACQUIRE_DURATION, null);
+        if (acquire != null) {
+            pool.acquire().record(acquire.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private PoolGauges registerPool(String client) {
+        PoolGauges pool = new PoolGauges(new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger(),
+                meterRegistry.timer("aws.http.pool.acquire", "client", client));
+        gauge("leased", client, pool.leased());
+        gauge("available", client, pool.available());
+        gauge("max", client, pool.max());
+        gauge("pending", client, pool.pending());
+        return pool;
+    }
+
+    private void gauge(String state, String client, AtomicInteger value) {
+        Gauge.builder("aws.http.pool.connections", value, AtomicInteger::get)
+                .tags("client", client, "state", state)
+                .register(meterRegistry);
+    }
+
+    private static void set(AtomicInteger gauge, MetricCollection http, SdkMetric<Integer> metric) {
+        Integer value = first(http, metric, null);
+        if (value != null) {
+            gauge.set(value);
+        }
+    }
+
+    private static <T> T first(MetricCollection collection, SdkMetric<T> metric, T fallback) {
+        List<T> values = collection.metricValues(metric);
+        return values.isEmpty() ? fallback : values.get(0);
+    }
+
+    @Override
+    public void close() {
+        // Meters are owned by the registry
+    }
+
+    private record PoolGauges(AtomicInteger leased, AtomicInteger available, AtomicInteger max,
+                              AtomicInteger pending, Timer acquire) {}
+}
@@ -0,0 +1,42 @@
+package com.streaming.app.config;
+
+import com.streaming.app.util.CorrelationIds;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the request's correlation id (from {@value CorrelationIds#HEADER}, or a new one) to the MDC and echoes it
+ * in the response. Runs ahead of EcsSignatureFilter so signature failures are logged with the id too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String id = CorrelationIds.sanitize(request.getHeader(CorrelationIds.HEADER));
+        MDC.put(CorrelationIds.MDC_KEY, id);
+        response.setHeader(CorrelationIds.HEADER, id);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CorrelationIds.MDC_KEY);
+        }
+    }
+
+    // SSE and other async requests re-dispatch on container threads; keep the id bound there as well
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
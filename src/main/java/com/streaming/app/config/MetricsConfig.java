@@ -0,0 +1,85 @@
+package com.streaming.app.config;
+
+import com.streaming.app.security.CallbackReplayCache;
+import com.streaming.app.service.DiskSegmentCache;
+import com.streaming.app.service.HotSegmentCache;
+import com.streaming.app.service.PresignedUrlCache;
+import com.streaming.app.service.VideoCache;
+import com.streaming.app.service.VideoStatusBroadcaster;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the in-process caches' existing stats() counters as meters. Values are read at scrape time.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(PresignedUrlCache presignedUrlCache,
+                                    HotSegmentCache hotSegmentCache,
+                                    DiskSegmentCache diskSegmentCache,
+                                    VideoCache videoCache,
+                                    CallbackReplayCache callbackReplayCache) {
+        return registry -> {
+            cacheCounters(registry, "presigned-url", presignedUrlCache,
+                    c -> c.stats().hits(), c -> c.stats().misses(), c -> c.stats().evictions());
+            cacheSize(registry, "presigned-url", presignedUrlCache, c -> c.stats().size());
+
+            cacheCounters(registry, "hot-segment", hotSegmentCache,
+                    c -> c.stats().hits(), c -> c.stats().misses(), c -> c.stats().evictions());
+            cacheSize(registry, "hot-segment", hotSegmentCache, c -> c.stats().entries());
+            Gauge.builder("cache.bytes", hotSegmentCache, c -> c.stats().bytes())
+                    .tag("cache", "hot-segment").baseUnit("bytes").register(registry);
+
+            cacheCounters(registry, "disk-segment", diskSegmentCache,
+                    c -> c.stats().hits(), c -> c.stats().misses(), c -> c.stats().evictions());
+            cacheSize(registry, "disk-segment", diskSegmentCache, c -> c.stats().entries());
+            Gauge.builder("cache.bytes", diskSegmentCache, c -> c.stats().bytes())
+                    .tag("cache", "disk-segment").baseUnit("bytes").register(registry);
+            FunctionCounter.builder("cache.fills", diskSegmentCache, c -> c.stats().fills())
+                    .tag("cache", "disk-segment").register(registry);
+
+            cacheCounters(registry, "video", videoCache,
+                    c -> c.stats().hits(), c -> c.stats().misses(), c -> c.stats().evictions());
+            cacheSize(registry, "video", videoCache, c -> c.stats().entries());
+
+            FunctionCounter.builder("cache.evictions", callbackReplayCache, c -> c.stats().evictions())
+                    .tag("cache", "callback-replay").register(registry);
+            cacheSize(registry, "callback-replay", callbackReplayCache, c -> c.stats().size());
+            FunctionCounter.builder("ecs.callback.duplicates", callbackReplayCache, c -> c.stats().duplicates())
+                    .register(registry);
+            FunctionCounter.builder("ecs.callback.rejected", callbackReplayCache, c -> c.stats().rejections())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder sseMetrics(VideoStatusBroadcaster broadcaster) {
+        return registry -> {
+            Gauge.builder("sse.subscribers", broadcaster, b -> b.stats().subscribers()).register(registry);
+            FunctionCounter.builder("sse.events", broadcaster, b -> b.stats().delivered())
+                    .tag("outcome", "delivered").register(registry);
+            FunctionCounter.builder("sse.events", broadcaster, b -> b.stats().dropped())
+                    .tag("outcome", "dropped").register(registry);
+        };
+    }
+
+    private static <T> void cacheCounters(MeterRegistry registry, String cache, T source,
+                                          ToDoubleFunction<T> hits, ToDoubleFunction<T> misses,
+                                          ToDoubleFunction<T> evictions) {
+        FunctionCounter.builder("cache.gets", source, hits).tag("cache", cache).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", source, misses).tag("cache", cache).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", source, evictions).tag("cache", cache).register(registry);
+    }
+
+    private static <T> void cacheSize(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> size) {
+        Gauge.builder("cache.size", source, size).tag("cache", cache).register(registry);
+    }
+}
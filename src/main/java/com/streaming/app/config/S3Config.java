@@ -1,28 +0,0 @@
-package com.streaming.app.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-
-@Configuration
-public class S3Config {
-
-    @Bean
-    public S3Client s3Client() {
-        return S3Client.builder()
-                .region(Region.AWS_GLOBAL) // overridden by requests if needed
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-    }
-
-    @Bean
-    public S3Presigner s3Presigner() {
-        return S3Presigner.builder()
-                .region(Region.AWS_GLOBAL)
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-    }
-}
\ No newline at end of file
@@ -1,20 +0,0 @@
-package com.streaming.app.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.sqs.SqsClient;
-
-@Configuration
-public class SqsConfig {
-
-    @Bean
-    public SqsClient sqsClient() {
-        return SqsClient.builder()
-                .region(Region.US_EAST_1)
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-    }
-
-}
\ No newline at end of file
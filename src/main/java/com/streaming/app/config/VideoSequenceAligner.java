@@ -0,0 +1,38 @@
+package com.streaming.app.config;
+
+import com.streaming.app.model.Video;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * videos.id used to be an IDENTITY column. ddl-auto creates videos_seq starting at 1, so on an existing
+ * database the sequence is moved past the current max id before the app takes traffic. It is only ever
+ * moved forward, so id blocks already handed out to other running instances stay unique.
+ */
+@Component
+@DependsOn("entityManagerFactory")   // schema update has created videos_seq by then
+@RequiredArgsConstructor
+@Slf4j
+public class VideoSequenceAligner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void align() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return;
+        }
+        Long value = jdbcTemplate.queryForObject(
+                "select setval('videos_seq', greatest((select coalesce(max(id), 0) from videos) + ?, " +
+                        "(select last_value from videos_seq)))",
+                Long.class, Video.ID_ALLOCATION_SIZE);
+        log.info("videos_seq at {}", value);
+    }
+}
@@ -0,0 +1,63 @@
+package com.streaming.app.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Streams JFR jdk.VirtualThreadPinned events while virtual threads are enabled, so blocking inside
+ * synchronized sections (ours or a library's) shows up in the logs with the offending stack.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "app.threads.pinning-diagnostics.enabled"},
+        havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    @Value("${app.threads.pinning-diagnostics.thresholdMs:20}")
+    private long thresholdMs;
+
+    @Value("${app.threads.pinning-diagnostics.maxFrames:8}")
+    private int maxFrames;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::report);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning above {}ms", thresholdMs);
+    }
+
+    private void report(RecordedEvent event) {
+        String stack = "";
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            stack = frames.stream()
+                    .limit(maxFrames)
+                    .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                    .collect(Collectors.joining(" <- "));
+        }
+        log.warn("Pinned for {}ms on {} at {}",
+                event.getDuration().toMillis(), (event.getThread() != null ? event.getThread().getJavaName() : "?"), stack);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.streaming.app.config;
 
+import com.streaming.app.util.CorrelationIds;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -18,7 +19,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns(origins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Content-Type")
+                .exposedHeaders("Content-Type", CorrelationIds.HEADER)
                 .allowCredentials(true);
     }
 }
@@ -1,10 +1,13 @@
 package com.streaming.app.controller;
 
 import com.streaming.app.dto.ContactForm;
+import com.streaming.app.security.ContactRateLimiter;
 import com.streaming.app.service.EmailService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -22,10 +25,26 @@ public class ContactController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ContactRateLimiter contactRateLimiter;
+
     @PostMapping
     public ResponseEntity<?> submitContactForm(
             @Valid @RequestBody ContactForm contactForm,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            HttpServletRequest request) {
+
+        // The client address from a trusted X-Forwarded-For (server.forward-headers-strategy=native)
+        long retryAfterSeconds = contactRateLimiter.tryAcquire(request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                    .body(Map.of(
+                            "success", false,
+                            "message", "Too many messages. Please try again later."
+                    ));
+        }
 
         if (bindingResult.hasErrors()) {
             Map<String, String> errors = bindingResult.getFieldErrors()
@@ -44,26 +63,21 @@ public class ContactController {
                     ));
         }
 
-        try {
-
-            emailService.sendContactFormEmail(contactForm);
-
-            emailService.sendConfirmationEmail(contactForm);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Thank you for contacting us! Check your email for confirmation.");
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
+        // Mail goes out from EmailService's dispatchers; the request only waits for the enqueue
+        if (!emailService.submitContactForm(contactForm)) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("message", "Failed to send message. Please try again later.");
 
             return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(errorResponse);
         }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Thank you for contacting us! Check your email for confirmation.");
+
+        return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
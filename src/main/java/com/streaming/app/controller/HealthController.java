@@ -1,15 +1,17 @@
 package com.streaming.app.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@Slf4j
 public class HealthController {
 
     @GetMapping("/health")
     public ResponseEntity<String> health() {
-        System.out.println("[HealthController] GET /health - Health check requested");
+        log.debug("GET /health - Health check requested");
         return ResponseEntity.ok("OK");
     }
 }
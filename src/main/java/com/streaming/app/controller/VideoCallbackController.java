@@ -7,12 +7,14 @@ import com.streaming.app.service.VideoService;
 import com.streaming.app.util.ResponseMessages;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/videos")
 @RequiredArgsConstructor
+@Slf4j
 public class VideoCallbackController {
 
     private final VideoService videoService;
@@ -22,34 +24,41 @@ public class VideoCallbackController {
             @PathVariable Long id,
             @Valid @RequestBody TranscodeResultDTO results) {
 
-        System.out.println("[VideoCallbackController] POST /api/videos/" + id + "/completed - Callback received");
-        System.out.println("[VideoCallbackController] Results videoId: " + results.getVideoId() + ", variants count: " + results.getVariants().size());
+        log.debug("POST /api/videos/{}/completed - Callback received", id);
+        log.debug("Results videoId: {}, variants count: {}", results.getVideoId(), results.getVariants().size());
         if (!id.equals(results.getVideoId())) {
-            System.out.println("[VideoCallbackController] ERROR: Video ID mismatch - path: " + id + ", body: " + results.getVideoId());
+            log.warn("Video ID mismatch - path: {}, body: {}", id, results.getVideoId());
             return ResponseEntity.badRequest().body(ResponseMessages.VIDEO_ID_MISMATCH);
         }
 
         videoService.saveTranscodedVariants(results);
-        System.out.println("[VideoCallbackController] Video " + id + " marked as PROCESSED");
+        log.info("Video {} marked as PROCESSED", id);
         return ResponseEntity.ok(String.format(ResponseMessages.VIDEO_PROCESSED_FORMAT, id));
     }
 
-    // Mark video as PROCESSING
+    // Mark video as PROCESSING; repeated calls while transcoding are heartbeats that hold off the stuck-job reaper
     @PostMapping("/{videoId}/processing")
     public ResponseEntity<Void> markProcessing(@PathVariable Long videoId) {
-        System.out.println("[VideoController] POST /api/videos/" + videoId + "/processing - Marking video as processing");
+        log.debug("POST /api/videos/{}/processing - Marking video as processing", videoId);
 
-        videoService.markAsProcessing(videoId);
-
-        System.out.println("[VideoController] Video " + videoId + " status updated to PROCESSING");
+        if (videoService.markAsProcessing(videoId)) {
+            log.info("Video {} status updated to PROCESSING", videoId);
+        } else if (videoService.heartbeat(videoId)) {
+            log.debug("Video {} heartbeat", videoId);
+        } else {
+            log.info("Video {} not in a processable state, ignoring", videoId);
+        }
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{id}/failed")
     public ResponseEntity<String> handleVideoFailed(@PathVariable Long id){
-        System.out.println("[VideoCallbackController] POST /api/videos/" + id + "/failed - Failure callback received");
-        videoService.markAsFailed(id);
-        System.out.println("[VideoCallbackController] Video " + id + " marked as FAILED");
+        log.debug("POST /api/videos/{}/failed - Failure callback received", id);
+        if (videoService.markAsFailed(id)) {
+            log.info("Video {} marked as FAILED", id);
+        } else {
+            log.info("Video {} not in a failable state, ignoring", id);
+        }
         return ResponseEntity.ok(String.format(ResponseMessages.VIDEO_FAILED_FORMAT, id));
     }
 }
@@ -6,6 +6,7 @@ import com.streaming.app.model.Video;
 import com.streaming.app.model.VideoStatus;
 import com.streaming.app.service.S3Service;
 import com.streaming.app.service.VideoService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +18,7 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/video")
+@Slf4j
 public class VideoDownloadController {
 
 
@@ -30,11 +32,11 @@ public class VideoDownloadController {
 
     @GetMapping("/{id}/download")
     public ResponseEntity<VideoDownloadResponse> getVideoDownloadLinks(@PathVariable("id") Long id) {
-        System.out.println("[VideoDownloadController] GET /api/video/" + id + "/download");
+        log.debug("GET /api/video/{}/download", id);
 
         Optional<Video> maybeVideo = videoService.getVideoById(id);
         if (maybeVideo.isEmpty()) {
-            System.out.println("[VideoDownloadController] Video not found: " + id);
+            log.debug("Video not found: {}", id);
             return ResponseEntity.notFound().build();
         }
 
@@ -42,8 +44,7 @@ public class VideoDownloadController {
 
         // Check if video is still processing
         if (video.getStatus() != VideoStatus.PROCESSED) {
-            System.out.println("[VideoDownloadController] Video still processing: " + id +
-                    ", status: " + video.getStatus());
+            log.debug("Video still processing: {}, status: {}", id, video.getStatus());
             return ResponseEntity.status(HttpStatus.ACCEPTED)
                     .body(new VideoDownloadResponse(
                             video.getId(),
@@ -55,7 +56,7 @@ public class VideoDownloadController {
 
         // Check if variants exist
         if (video.getVariants() == null || video.getVariants().isEmpty()) {
-            System.out.println("[VideoDownloadController] No variants available for video: " + id);
+            log.debug("No variants available for video: {}", id);
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         }
 
@@ -76,8 +77,7 @@ public class VideoDownloadController {
                 })
                 .collect(Collectors.toList());
 
-        System.out.println("[VideoDownloadController] Returning " + variantDTOs.size() +
-                " variants for video: " + id);
+        log.debug("Returning {} variants for video: {}", variantDTOs.size(), id);
 
         return ResponseEntity.ok(new VideoDownloadResponse(
                 video.getId(),
@@ -0,0 +1,73 @@
+package com.streaming.app.controller;
+
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.service.ManifestService;
+import com.streaming.app.service.VideoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Off by default: the transcoder has to write segmented or sidx-indexed fMP4 renditions (see ManifestService)
+@RestController
+@RequestMapping("/api/video")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "manifest.enabled", havingValue = "true")
+@Slf4j
+public class VideoManifestController {
+
+    private static final MediaType HLS = MediaType.parseMediaType("application/vnd.apple.mpegurl");
+    private static final MediaType DASH = MediaType.parseMediaType("application/dash+xml");
+
+    private final VideoService videoService;
+    private final ManifestService manifestService;
+
+    @GetMapping("/{id}/master.m3u8")
+    public ResponseEntity<String> getHlsMaster(@PathVariable("id") Long id) {
+        log.debug("GET /api/video/{}/master.m3u8", id);
+        return render(id, HLS, manifestService::hlsMasterPlaylist);
+    }
+
+    @GetMapping("/{id}/hls/{quality}.m3u8")
+    public ResponseEntity<String> getHlsMedia(@PathVariable("id") Long id, @PathVariable("quality") String quality) {
+        log.debug("GET /api/video/{}/hls/{}.m3u8", id, quality);
+        return render(id, HLS, video -> manifestService.hlsMediaPlaylist(video, quality));
+    }
+
+    @GetMapping("/{id}/manifest.mpd")
+    public ResponseEntity<String> getDashManifest(@PathVariable("id") Long id) {
+        log.debug("GET /api/video/{}/manifest.mpd", id);
+        return render(id, DASH, manifestService::dashManifest);
+    }
+
+    private ResponseEntity<String> render(Long id, MediaType mediaType, Function<Video, Optional<String>> builder) {
+        Optional<Video> maybeVideo = videoService.getVideoById(id);
+        if (maybeVideo.isEmpty()) {
+            log.debug("Video not found: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+
+        Video video = maybeVideo.get();
+        if (video.getStatus() != VideoStatus.PROCESSED) {
+            log.debug("Video still processing: {}, status: {}", id, video.getStatus());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Video is still being processed");
+        }
+
+        return builder.apply(video)
+                .map(body -> ResponseEntity.ok()
+                        .contentType(mediaType)
+                        // Manifests embed presigned URLs; let clients/CDNs reuse them only briefly
+                        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePrivate())
+                        .body(body))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,43 +1,79 @@
 package com.streaming.app.controller;
 
-import com.streaming.app.model.Video;
+import com.streaming.app.dto.VideoPageResponse;
 import com.streaming.app.model.VideoStatus;
 import com.streaming.app.service.VideoService;
+import com.streaming.app.service.VideoStatusBroadcaster;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/videos")
 @RequiredArgsConstructor
+@Slf4j
 public class VideoRetrievalController {
 
     private final VideoService videoService;
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
 
     // 1. Fetch video by ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getVideoById(@PathVariable Long id) {
-        System.out.println("[VideoRetrievalController] GET /api/videos/" + id + " - Fetching video by ID");
+        log.debug("GET /api/videos/{} - Fetching video by ID", id);
         return videoService.getVideoById(id)
                 .map(video -> {
-                    System.out.println("[VideoRetrievalController] Video found: " + video.getId() + ", status: " + video.getStatus());
+                    log.debug("Video found: {}, status: {}", video.getId(), video.getStatus());
                     return ResponseEntity.ok(video);
                 })
                 .orElseGet(() -> {
-                    System.out.println("[VideoRetrievalController] Video not found: " + id);
+                    log.debug("Video not found: {}", id);
                     return ResponseEntity.notFound().build();
                 });
     }
 
-    // 2. Fetch videos by status (optional)
+    // 2. Fetch videos by status, one keyset page at a time
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Video>> getVideosByStatus(@PathVariable String status) {
-        System.out.println("[VideoRetrievalController] GET /api/videos/status/" + status + " - Fetching videos by status");
-        VideoStatus videoStatus = VideoStatus.valueOf(status.toUpperCase());
-        List<Video> videos = videoService.getVideosByStatus(videoStatus);
-        System.out.println("[VideoRetrievalController] Found " + videos.size() + " videos with status: " + videoStatus);
-        return ResponseEntity.ok(videos);
+    public ResponseEntity<?> getVideosByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includeVariants) {
+        log.debug("GET /api/videos/status/{} - Fetching videos by status", status);
+        try {
+            VideoStatus videoStatus = VideoStatus.valueOf(status.toUpperCase());
+            VideoPageResponse page = videoService.getVideosByStatus(videoStatus, cursor, limit, includeVariants);
+            log.debug("Found {} videos with status: {}", page.getItems().size(), videoStatus);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            log.debug("Bad request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
-}
\ No newline at end of file
+
+    // 3. Push status changes as Server-Sent Events instead of polling; closes after PROCESSED/FAILED
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatus(
+            @PathVariable Long id,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.debug("GET /api/videos/{}/events - lastEventId: {}", id, lastEventId);
+        Optional<VideoStatus> status = videoService.getVideoStatus(id);
+        if (status.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = videoStatusBroadcaster.subscribe(id, lastEventId,
+                () -> videoService.getVideoStatus(id).orElse(status.get()));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // Tell nginx-style proxies not to buffer the stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+}
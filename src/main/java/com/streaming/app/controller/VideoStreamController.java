@@ -0,0 +1,55 @@
+package com.streaming.app.controller;
+
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.model.VideoVariant;
+import com.streaming.app.service.VideoService;
+import com.streaming.app.service.VideoStreamService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Optional;
+
+// Byte-serving proxy for clients that can't follow presigned S3 URLs; disabled unless streaming.proxy.enabled=true
+@RestController
+@RequestMapping("/api/video")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "streaming.proxy.enabled", havingValue = "true")
+@Slf4j
+public class VideoStreamController {
+
+    private final VideoService videoService;
+    private final VideoStreamService videoStreamService;
+
+    @GetMapping("/{id}/stream/{quality}")
+    public void streamVariant(@PathVariable("id") Long id,
+                              @PathVariable("quality") String quality,
+                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                              @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                              HttpServletResponse response) throws IOException {
+        log.debug("GET /api/video/{}/stream/{} - range: {}", id, quality, range);
+
+        Optional<Video> maybeVideo = videoService.getVideoById(id);
+        if (maybeVideo.isEmpty() || maybeVideo.get().getStatus() != VideoStatus.PROCESSED) {
+            log.debug("Video not found or not processed: {}", id);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Optional<VideoVariant> variant = maybeVideo.get().getVariants().stream()
+                .filter(v -> v.getQuality().equals(quality))
+                .findFirst();
+        if (variant.isEmpty()) {
+            log.debug("No {} variant for video: {}", quality, id);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        videoStreamService.stream(variant.get(), range, ifRange, response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.streaming.app.controller;
 
 import com.streaming.app.service.S3Service;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("api/video")
+@Slf4j
 public class videoDeleteController {
 
     @Autowired
@@ -19,9 +21,9 @@ public class videoDeleteController {
     @DeleteMapping("/delete")
     public ResponseEntity<String> deleteVideo(@RequestParam String s3Key)
     {
-        System.out.println("[videoDeleteController] DELETE /delete - Deleting file: " + s3Key);
+        log.info("DELETE /delete - Deleting file: {}", s3Key);
         s3Service.deleteFile(s3Key);
-        System.out.println("[videoDeleteController] File deleted successfully: " + s3Key);
+        log.info("File deleted successfully: {}", s3Key);
         return ResponseEntity.ok(" File Successfully deleted " + s3Key);
     }
 }
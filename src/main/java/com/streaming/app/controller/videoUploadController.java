@@ -1,103 +1,270 @@
 package com.streaming.app.controller;
 
-import com.streaming.app.service.SqsMessageProducer;
+import com.streaming.app.dto.BulkUploadUrlRequest;
+import com.streaming.app.dto.MultipartCompleteRequest;
+import com.streaming.app.dto.MultipartPartUrlsRequest;
 import com.streaming.app.model.Video;
-import com.streaming.app.model.VideoStatus;
 import com.streaming.app.service.S3Service;
 import com.streaming.app.service.VideoService;
+import com.streaming.app.util.CorrelationIds;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("api/video")
+@Slf4j
 public class videoUploadController {
 
     @Autowired
     private S3Service s3Service;
     @Autowired
     private VideoService videoService;
-
+    // Boot's MVC async executor (virtual threads when enabled), for continuations that block on the database
     @Autowired
-    private SqsMessageProducer sqsMessageProducer;
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
 
 
     // Endpoint to get presigned upload URL
     @PostMapping("/upload-url")
     public ResponseEntity<Map<String,String>> getUploadUrl(@RequestBody Map<String,String> request)
     {
-        System.out.println("[videoUploadController] POST /upload-url - Request received");
+        log.debug("POST /upload-url - Request received");
         String fileName= request.get("fileName");
         String contentType= request.get("contentType");
-        System.out.println("[videoUploadController] fileName: " + fileName + ", contentType: " + contentType);
+        String tenantId = request.get("tenantId");
+        log.debug("fileName: {}, contentType: {}", fileName, contentType);
 
-        String s3Key = s3Service.generateRawVideoKey(fileName);
-        String presignedUrl = s3Service.generatePresignedUrl(s3Key, contentType);
+        Video video = videoService.saveUploadedVideo(fileName, contentType, tenantId);
+        log.debug("Video saved with ID: {}", video.getId());
 
-        Video video = videoService.saveUploadedVideo(fileName, s3Key, contentType);
-        System.out.println("[videoUploadController] Video saved with ID: " + video.getId());
+        String s3Key = video.getS3Key();
+        String presignedUrl = s3Service.generatePresignedUrl(s3Key, contentType);
 
         Map<String,String> response = Map.of(
                 "presignedUrl",presignedUrl,
                 "s3key",s3Key,
                 "videoId", video.getId().toString()
         );
-        System.out.println("[videoUploadController] Returning presigned URL and videoId: " + video.getId());
+        log.debug("Returning presigned URL and videoId: {}", video.getId());
         return ResponseEntity.ok(response);
     }
 
+    // Batch variant of /upload-url: one transaction for all rows, presigned in parallel, one response
+    @PostMapping("/upload-urls")
+    public ResponseEntity<Map<String, Object>> getUploadUrls(@Valid @RequestBody BulkUploadUrlRequest request)
+    {
+        log.debug("POST /upload-urls - {} files", request.getFiles().size());
+        List<Video> videos = videoService.saveUploadedVideos(request.getFiles(), request.getTenantId());
+
+        Map<String, String> contentTypeByKey = new LinkedHashMap<>();
+        videos.forEach(video -> contentTypeByKey.put(video.getS3Key(), video.getContentType()));
+        Map<String, String> urls = s3Service.generatePresignedUrls(contentTypeByKey);
+
+        List<Map<String, String>> uploads = new ArrayList<>(videos.size());
+        for (Video video : videos) {
+            uploads.add(Map.of(
+                    "presignedUrl", urls.get(video.getS3Key()),
+                    "s3key", video.getS3Key(),
+                    "videoId", video.getId().toString(),
+                    "fileName", video.getFileName()
+            ));
+        }
+        log.debug("Returning {} presigned URLs", uploads.size());
+        return ResponseEntity.ok(Map.of("uploads", uploads));
+    }
+
+    // Multipart upload for large files: create, then fetch part URLs in batches, PUT parts in parallel, then complete
+    @PostMapping("/multipart")
+    public ResponseEntity<Map<String,String>> createMultipartUpload(@RequestBody Map<String,String> request)
+    {
+        log.debug("POST /multipart - Request received");
+        String fileName = request.get("fileName");
+        String contentType = request.get("contentType");
+        String tenantId = request.get("tenantId");
+
+        // The key embeds the video id, so the row has to exist before S3 is asked for an upload id
+        Video video = videoService.saveUploadedVideo(fileName, contentType, tenantId);
+        String uploadId;
+        try {
+            uploadId = s3Service.createMultipartUpload(video.getS3Key(), contentType);
+        } catch (RuntimeException e) {
+            // No upload will ever arrive for this row; don't leave it UPLOADED forever
+            videoService.markAsFailed(video.getId());
+            throw e;
+        }
+        log.info("Multipart upload started for video {}", video.getId());
+
+        return ResponseEntity.ok(Map.of(
+                "uploadId", uploadId,
+                "s3key", video.getS3Key(),
+                "videoId", video.getId().toString()
+        ));
+    }
+
+    @PostMapping("/multipart/{videoId}/parts")
+    public ResponseEntity<?> getPartUploadUrls(@PathVariable Long videoId,
+                                               @Valid @RequestBody MultipartPartUrlsRequest request) {
+        log.debug("POST /multipart/{}/parts - {} parts requested", videoId, request.getPartNumbers().size());
+        if (request.getPartNumbers().stream().anyMatch(n -> n == null || n < 1 || n > 10_000)) {
+            return ResponseEntity.badRequest().body("Part numbers must be between 1 and 10000");
+        }
+
+        Optional<Video> video = videoService.getVideoById(videoId);
+        if (video.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<Integer, String> urls = s3Service.generatePresignedPartUrls(
+                video.get().getS3Key(), request.getUploadId(), request.getPartNumbers());
+        return ResponseEntity.ok(Map.of("uploadId", request.getUploadId(), "urls", urls));
+    }
+
+    // Parts already stored, so an interrupted client only re-sends what is missing
+    @GetMapping("/multipart/{videoId}/parts")
+    public CompletableFuture<ResponseEntity<?>> listUploadedParts(@PathVariable Long videoId,
+                                                                  @RequestParam String uploadId) {
+        log.debug("GET /multipart/{}/parts", videoId);
+        Optional<Video> video = videoService.getVideoById(videoId);
+        if (video.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return s3Service.listUploadedPartsAsync(video.get().getS3Key(), uploadId)
+                .<ResponseEntity<?>>thenApply(uploaded -> {
+                    List<Map<String, Object>> parts = uploaded.stream()
+                            .map(part -> {
+                                Map<String, Object> dto = new LinkedHashMap<>();
+                                dto.put("partNumber", part.partNumber());
+                                dto.put("etag", part.eTag());
+                                dto.put("size", part.size());
+                                return dto;
+                            })
+                            .toList();
+                    return ResponseEntity.ok(Map.of("uploadId", uploadId, "parts", parts));
+                })
+                .exceptionally(e -> multipartError(videoId, e));
+    }
+
+    // Completing fires the usual ObjectCreated event, which lands in /videos/uploaded like a single PUT
+    @PostMapping("/multipart/{videoId}/complete")
+    public CompletableFuture<ResponseEntity<?>> completeMultipartUpload(@PathVariable Long videoId,
+                                                                        @Valid @RequestBody MultipartCompleteRequest request) {
+        log.debug("POST /multipart/{}/complete", videoId);
+        Optional<Video> video = videoService.getVideoById(videoId);
+        if (video.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+
+        List<CompletedPart> parts = request.getParts() == null ? List.of() : request.getParts().stream()
+                .map(part -> CompletedPart.builder().partNumber(part.getPartNumber()).eTag(part.getEtag()).build())
+                .toList();
+        String s3Key = video.get().getS3Key();
+        return s3Service.completeMultipartUploadAsync(s3Key, request.getUploadId(), parts)
+                .<ResponseEntity<?>>thenApply(done -> ResponseEntity.ok(Map.of("videoId", videoId.toString(), "s3key", s3Key)))
+                .exceptionally(e -> multipartError(videoId, e));
+    }
+
+    @DeleteMapping("/multipart/{videoId}")
+    public CompletableFuture<ResponseEntity<?>> abortMultipartUpload(@PathVariable Long videoId,
+                                                                     @RequestParam String uploadId) {
+        log.debug("DELETE /multipart/{}", videoId);
+        Optional<Video> video = videoService.getVideoById(videoId);
+        if (video.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        // markAsFailed is a JDBC call; keep it off the small aws-async-completion pool
+        return s3Service.abortMultipartUploadAsync(video.get().getS3Key(), uploadId)
+                .<ResponseEntity<?>>thenApplyAsync(done -> {
+                    videoService.markAsFailed(videoId);
+                    return ResponseEntity.noContent().build();
+                }, applicationTaskExecutor)
+                .exceptionally(e -> multipartError(videoId, e));
+    }
+
+    // NoSuchUpload / InvalidPart etc. are client errors; anything else is passed through as-is
+    private ResponseEntity<?> multipartError(Long videoId, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (!(cause instanceof S3Exception e)) {
+            throw failure instanceof CompletionException ce ? ce : new CompletionException(failure);
+        }
+        String code = e.awsErrorDetails() != null ? e.awsErrorDetails().errorCode() : null;
+        log.warn("Multipart request for video {} failed: {}", videoId, code);
+        if (e.statusCode() == 404) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Upload not found: " + code);
+        }
+        if (e.statusCode() == 400) {
+            return ResponseEntity.badRequest().body("Invalid multipart request: " + code);
+        }
+        throw e;
+    }
+
     // Endpoint to handle upload completion notification
    @PostMapping("/videos/uploaded")
     public ResponseEntity<String> onUploadComplete(
-            @RequestBody Map<String, Object> event) {
+            @RequestBody Map<String, Object> event, HttpServletResponse response) {
 
-        System.out.println("[videoUploadController] POST /videos/uploaded - Upload completion event received");
+        log.debug("POST /videos/uploaded - Upload completion event received");
         
         try {
+            // The EventBridge event id becomes the correlation id for the rest of the pipeline;
+            // re-echo it so the response header matches what the logs and the transcode job carry
+            if (event.get("id") != null) {
+                String correlationId = CorrelationIds.sanitize(event.get("id").toString());
+                MDC.put(CorrelationIds.MDC_KEY, correlationId);
+                response.setHeader(CorrelationIds.HEADER, correlationId);
+            }
             Map<String, Object> detail = (Map<String, Object>) event.get("detail");
             Map<String, Object> bucket = (Map<String, Object>) detail.get("bucket");
             Map<String, Object> object = (Map<String, Object>) detail.get("object");
 
             String bucketName = bucket.get("name").toString();
             String s3Key = object.get("key").toString();
-            System.out.println("[videoUploadController] bucketName: " + bucketName + ", s3Key: " + s3Key);
+            Long sizeBytes = object.get("size") instanceof Number size ? size.longValue() : null;
+            log.debug("bucketName: {}, s3Key: {}", bucketName, s3Key);
 
             Long videoId;
             try {
                 videoId = videoService.resolveVideoIdFromS3Key(s3Key);
-                System.out.println("[videoUploadController] Resolved videoId: " + videoId);
+                log.debug("Resolved videoId: {}", videoId);
             } catch (IllegalArgumentException e) {
 
-                System.out.println("[videoUploadController] Skipping file with invalid format: " + s3Key + " - " + e.getMessage());
+                log.info("Skipping file with invalid format: {} - {}", s3Key, e.getMessage());
 
                 return ResponseEntity.ok("Skipped: Invalid S3 key format");
             }
 
-            Optional<Video> existingVideo = videoService.getVideoById(videoId);
-            if (existingVideo.isPresent()) {
-                Video video = existingVideo.get();
-                if (video.getStatus() == VideoStatus.QUEUED || video.getStatus() == VideoStatus.PROCESSING || video.getStatus() == VideoStatus.PROCESSED) {
-                    System.out.println("[videoUploadController] Video " + videoId + " already " + video.getStatus() + ", skipping");
-                    return ResponseEntity.ok("Video already being processed");
-                }
+            // Conditional UPDATE + outbox insert in one commit: duplicate S3 events race here and only one wins,
+            // and a crash can no longer leave a QUEUED video that was never sent to SQS
+            if (!videoService.queueForProcessing(videoId, s3Key, sizeBytes)) {
+                log.info("Video {} already queued or processed, skipping", videoId);
+                return ResponseEntity.ok("Video already being processed");
             }
-
-            videoService.markQueued(videoId);
-            System.out.println("[videoUploadController] Video marked as QUEUED");
-            
-            sqsMessageProducer.sendVideoForProcessing(videoId, s3Key);
-            System.out.println("[videoUploadController] SQS message sent for processing");
+            log.info("Video marked as QUEUED, transcode job written to outbox");
 
             return ResponseEntity.ok("Video queued for processing.");
             
         } catch (Exception e) {
 
-            System.err.println("[videoUploadController] Error processing upload event: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error processing upload event", e);
 
             if (isRecoverableError(e)) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,36 @@
+package com.streaming.app.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadUrlRequest {
+
+    @NotNull(message = "files list is required")
+    @Valid
+    @Size(min = 1, max = 500, message = "Between 1 and 500 files per request")
+    private List<FileDTO> files;
+
+    // Advisory grouping for tier routing only; not authenticated
+    private String tenantId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileDTO {
+
+        @NotBlank
+        private String fileName;
+
+        private String contentType;  // video/mp4
+    }
+}
@@ -0,0 +1,34 @@
+package com.streaming.app.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartCompleteRequest {
+
+    @NotBlank(message = "uploadId is required")
+    private String uploadId;
+
+    @Valid
+    private List<PartDTO> parts;   // optional; when omitted every part S3 has received is used
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PartDTO {
+
+        @NotNull
+        private Integer partNumber;
+
+        @NotBlank
+        private String etag;         // ETag header returned by the part PUT
+    }
+}
@@ -0,0 +1,23 @@
+package com.streaming.app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartPartUrlsRequest {
+
+    @NotBlank(message = "uploadId is required")
+    private String uploadId;
+
+    @NotNull(message = "partNumbers is required")
+    @Size(min = 1, max = 100, message = "Request between 1 and 100 part URLs at a time")
+    private List<Integer> partNumbers;   // 1..10000, S3's multipart limit
+}
@@ -38,5 +38,25 @@ public class TranscodeResultDTO {
         private String url;         // Complete S3 public URL
 
         private String contentType;  // video/mp4
+
+        // Optional rendition metadata for adaptive manifests
+        private Long bandwidth;               // peak bits per second
+        private Integer width;
+        private Integer height;
+        private String codecs;                // e.g. "avc1.64001f,mp4a.40.2"
+        private Double durationSeconds;
+
+        // Optional fMP4 segmentation, e.g. "processed-videos/123/720p/seg_{n}.m4s"
+        private String initSegmentKey;
+        private String segmentKeyTemplate;
+        private Integer segmentCount;
+        private Double segmentDurationSeconds;
+
+        public VariantDTO(String quality, String s3Key, String url, String contentType) {
+            this.quality = quality;
+            this.s3Key = s3Key;
+            this.url = url;
+            this.contentType = contentType;
+        }
     }
 }
\ No newline at end of file
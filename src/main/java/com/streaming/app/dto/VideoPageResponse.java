@@ -0,0 +1,15 @@
+package com.streaming.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoPageResponse {
+    private List<VideoSummaryDTO> items;
+    private String nextCursor;   // null when there are no more pages
+}
@@ -0,0 +1,8 @@
+package com.streaming.app.dto;
+
+import com.streaming.app.model.VideoStatus;
+
+import java.time.Instant;
+
+// Published by VideoService whenever a video's status actually changes
+public record VideoStatusEvent(Long videoId, VideoStatus status, Instant changedAt) {}
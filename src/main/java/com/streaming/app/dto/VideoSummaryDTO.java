@@ -0,0 +1,37 @@
+package com.streaming.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.model.VideoVariant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Lightweight listing row; variants are only populated when explicitly requested
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VideoSummaryDTO {
+    private Long id;
+    private String title;
+    private String fileName;
+    private String contentType;
+    private VideoStatus status;
+    private LocalDateTime uploadedAt;
+    private LocalDateTime processedAt;
+    private List<VideoVariant> variants;
+
+    // Used by the JPQL constructor expression in VideoRepository
+    public VideoSummaryDTO(Long id, String title, String fileName, String contentType,
+                           VideoStatus status, LocalDateTime uploadedAt, LocalDateTime processedAt) {
+        this.id = id;
+        this.title = title;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.status = status;
+        this.uploadedAt = uploadedAt;
+        this.processedAt = processedAt;
+    }
+}
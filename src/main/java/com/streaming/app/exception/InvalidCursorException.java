@@ -0,0 +1,9 @@
+package com.streaming.app.exception;
+
+// A page cursor that wasn't produced by us (or was tampered with); answered with 400
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,36 @@
+package com.streaming.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Outbox row for a raw-bucket object that should be deleted once its video has been processed
+@Entity
+@Table(name = "raw_object_cleanup", indexes = {
+        @Index(name = "idx_raw_object_cleanup_next_attempt", columnList = "nextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RawObjectCleanup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String s3Key;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
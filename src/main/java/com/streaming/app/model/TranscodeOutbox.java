@@ -0,0 +1,52 @@
+package com.streaming.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Outbox row for a transcode job; written in the same transaction that moves the video to QUEUED
+@Entity
+@Table(name = "transcode_outbox", indexes = {
+        @Index(name = "idx_transcode_outbox_pending", columnList = "publishedAt, nextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranscodeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long videoId;
+
+    @Column(nullable = false)
+    private String s3Key;
+
+    // Null for rows written before tiers existed; published to the STANDARD queue
+    @Enumerated(EnumType.STRING)
+    private TranscodeTier tier;
+
+    // Logged with every step of the job and sent to the transcoder as an SQS message attribute
+    @Column(length = 64)
+    private String correlationId;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+
+    // Set once SQS has acknowledged the message
+    private LocalDateTime publishedAt;
+
+    private String messageId;
+
+    @Column(length = 1000)
+    private String lastError;
+}
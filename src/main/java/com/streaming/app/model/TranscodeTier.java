@@ -0,0 +1,8 @@
+package com.streaming.app.model;
+
+// Priority tier of a transcode job; each tier is published to its own SQS queue
+public enum TranscodeTier {
+    INTERACTIVE,
+    STANDARD,
+    BULK
+}
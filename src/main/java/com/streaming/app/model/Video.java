@@ -8,7 +8,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name="videos")
+@Table(name="videos", indexes = {
+        @Index(name = "idx_videos_status_uploaded_at_id", columnList = "status, uploaded_at, id"),
+        @Index(name = "idx_videos_status_updated_at_id", columnList = "status, statusUpdatedAt, id"),
+        @Index(name = "ux_videos_s3_key", columnList = "s3Key", unique = true),
+        @Index(name = "idx_videos_tenant_status", columnList = "tenantId, status")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,8 +21,12 @@ import java.util.List;
 @Builder
 public class Video {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts; see VideoSequenceAligner
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "videos_seq")
+    @SequenceGenerator(name = "videos_seq", sequenceName = "videos_seq", allocationSize = Video.ID_ALLOCATION_SIZE)
     private Long id;
 
     private String title;
@@ -30,6 +39,12 @@ public class Video {
 
     private String fileName;
 
+    // Owning tenant for fair-share queueing; null is treated as the shared default tenant
+    private String tenantId;
+
+    // Raw object size as reported by the upload event
+    private Long sizeBytes;
+
     @Enumerated(EnumType.STRING)
     private VideoStatus status;
 
@@ -41,5 +56,14 @@ public class Video {
 
     private LocalDateTime processedAt;
 
+    // Last status change or PROCESSING heartbeat, on the database clock; the stuck-job reaper measures
+    // QUEUED/PROCESSING deadlines from here
+    private LocalDateTime statusUpdatedAt;
+
+    // Automatic requeues so far, and the earliest time the reaper may consider the video stuck again
+    private Integer retryCount;
+
+    private LocalDateTime nextRetryAt;
+
 }
 
@@ -13,4 +13,23 @@ public class VideoVariant {
     private String quality;
     private String s3Key;
     private String contentType;
-}
\ No newline at end of file
+
+    // Rendition metadata reported by the transcoder, used for HLS/DASH manifests (all optional)
+    private Long bandwidth;              // peak bits per second
+    private Integer width;
+    private Integer height;
+    private String codecs;               // RFC 6381, e.g. "avc1.64001f,mp4a.40.2"
+    private Double durationSeconds;
+
+    // Present only when the rendition was also written as fMP4 segments
+    private String initSegmentKey;
+    private String segmentKeyTemplate;   // "{n}" is replaced by the 0-based segment index
+    private Integer segmentCount;
+    private Double segmentDurationSeconds;
+
+    public VideoVariant(String quality, String s3Key, String contentType) {
+        this.quality = quality;
+        this.s3Key = s3Key;
+        this.contentType = contentType;
+    }
+}
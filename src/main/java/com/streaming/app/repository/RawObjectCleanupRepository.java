@@ -0,0 +1,29 @@
+package com.streaming.app.repository;
+
+import com.streaming.app.model.RawObjectCleanup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RawObjectCleanupRepository extends JpaRepository<RawObjectCleanup, Long> {
+
+    // SKIP LOCKED lets several app instances drain the outbox without handing out the same rows
+    @Query(value = "select * from raw_object_cleanup " +
+            "where attempts < :maxAttempts and next_attempt_at <= :now " +
+            "order by next_attempt_at limit :limit for update skip locked",
+            nativeQuery = true)
+    List<RawObjectCleanup> lockDueBatch(@Param("now") LocalDateTime now,
+                                        @Param("maxAttempts") int maxAttempts,
+                                        @Param("limit") int limit);
+
+    // Rows the worker gave up on; nextAttemptAt is the time of the last attempt plus its backoff
+    @Modifying
+    @Transactional
+    @Query("delete from RawObjectCleanup r where r.attempts >= :maxAttempts and r.nextAttemptAt < :before")
+    int deleteDeadBefore(@Param("maxAttempts") int maxAttempts, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,39 @@
+package com.streaming.app.repository;
+
+import com.streaming.app.model.TranscodeOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface TranscodeOutboxRepository extends JpaRepository<TranscodeOutbox, Long> {
+
+    // Unpublished rows that are due; SKIP LOCKED keeps concurrent relays from publishing the same row
+    @Query(value = "select * from transcode_outbox " +
+            "where published_at is null and attempts < :maxAttempts and next_attempt_at <= :now " +
+            "order by next_attempt_at limit :limit for update skip locked",
+            nativeQuery = true)
+    List<TranscodeOutbox> lockDueBatch(@Param("now") LocalDateTime now,
+                                       @Param("maxAttempts") int maxAttempts,
+                                       @Param("limit") int limit);
+
+    // Latest job written for the video, i.e. the one whose tier actually routed the transcode
+    Optional<TranscodeOutbox> findFirstByVideoIdOrderByIdDesc(Long videoId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TranscodeOutbox o where o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+
+    // Rows the relay gave up on; nextAttemptAt is the time of the last attempt plus its backoff
+    @Modifying
+    @Transactional
+    @Query("delete from TranscodeOutbox o where o.publishedAt is null and o.attempts >= :maxAttempts " +
+            "and o.nextAttemptAt < :before")
+    int deleteDeadBefore(@Param("maxAttempts") int maxAttempts, @Param("before") LocalDateTime before);
+}
@@ -1,18 +1,148 @@
 package com.streaming.app.repository;
 
+import com.streaming.app.dto.VideoSummaryDTO;
 import com.streaming.app.model.Video;
 import com.streaming.app.model.VideoStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface VideoRepository extends JpaRepository<Video, Long> {
 
     List<Video> findByStatus(VideoStatus status);
-    List<Video> findByStatusOrderByUploadedAtAsc(VideoStatus status);
 
     Optional<Video> findByS3Key(String s3Key);
 
-    Optional<Video> findByFileName(String originalFileName);
+    // Keyset pagination over (status, uploadedAt, id), served by idx_videos_status_uploaded_at_id.
+    // Rows without uploadedAt can't be encoded in a cursor; they are listed again once backfillUploadedAt has run
+    @Query("select new com.streaming.app.dto.VideoSummaryDTO(v.id, v.title, v.fileName, v.contentType, " +
+            "v.status, v.uploadedAt, v.processedAt) from Video v " +
+            "where v.status = :status and v.uploadedAt is not null order by v.uploadedAt asc, v.id asc")
+    List<VideoSummaryDTO> findSummariesByStatus(@Param("status") VideoStatus status, Limit limit);
+
+    @Query("select new com.streaming.app.dto.VideoSummaryDTO(v.id, v.title, v.fileName, v.contentType, " +
+            "v.status, v.uploadedAt, v.processedAt) from Video v " +
+            "where v.status = :status and v.uploadedAt is not null " +
+            "and (v.uploadedAt > :uploadedAt or (v.uploadedAt = :uploadedAt and v.id > :id)) " +
+            "order by v.uploadedAt asc, v.id asc")
+    List<VideoSummaryDTO> findSummariesByStatusAfter(@Param("status") VideoStatus status,
+                                                     @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    // Variants for a whole page in one query, as (videoId, VideoVariant) pairs
+    @Query("select v.id, vv from Video v join v.variants vv where v.id in :ids")
+    List<Object[]> findVariantsByVideoIds(@Param("ids") Collection<Long> ids);
+
+    // Single-statement compare-and-set on status; returns the number of rows changed (0 or 1)
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.status = :to, v.statusUpdatedAt = local datetime where v.id = :id and v.status in :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<VideoStatus> from,
+                         @Param("to") VideoStatus to);
+
+    // Extends the PROCESSING deadline while the transcoder is still working; the status itself doesn't change
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.statusUpdatedAt = local datetime " +
+            "where v.id = :id and v.status = com.streaming.app.model.VideoStatus.PROCESSING")
+    int touchProcessing(@Param("id") Long id);
+
+    // The clock every statusUpdatedAt is written with, so deadlines are computed against the same one
+    @Query(value = "select localtimestamp", nativeQuery = true)
+    LocalDateTime databaseNow();
+
+    // Keyset scan over (status, statusUpdatedAt, id) for videos whose status hasn't moved since before :cutoff
+    @Query("select v.id as id, v.s3Key as s3Key, v.statusUpdatedAt as statusUpdatedAt, v.retryCount as retryCount, " +
+            "v.tenantId as tenantId, v.sizeBytes as sizeBytes " +
+            "from Video v where v.status = :status and v.statusUpdatedAt < :cutoff " +
+            "and (v.nextRetryAt is null or v.nextRetryAt < :cutoff) " +
+            "and (v.statusUpdatedAt > :afterUpdatedAt or (v.statusUpdatedAt = :afterUpdatedAt and v.id > :afterId)) " +
+            "order by v.statusUpdatedAt asc, v.id asc")
+    List<StuckVideo> findStuck(@Param("status") VideoStatus status,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                               @Param("afterId") Long afterId,
+                               Limit limit);
+
+    // QUEUED variant of findStuck: a QUEUED video only counts as lost once every transcode message for it was
+    // published before :publishedCutoff (publishedAt is written on the app clock, so :publishedCutoff is too).
+    // Unpublished rows belong to the outbox relay; a merely backlogged queue keeps the video out of this scan.
+    @Query("select v.id as id, v.s3Key as s3Key, v.statusUpdatedAt as statusUpdatedAt, v.retryCount as retryCount, " +
+            "v.tenantId as tenantId, v.sizeBytes as sizeBytes " +
+            "from Video v where v.status = com.streaming.app.model.VideoStatus.QUEUED and v.statusUpdatedAt < :cutoff " +
+            "and (v.nextRetryAt is null or v.nextRetryAt < :cutoff) " +
+            "and not exists (select o.id from TranscodeOutbox o where o.videoId = v.id " +
+            "and (o.publishedAt is null or o.publishedAt >= :publishedCutoff)) " +
+            "and (v.statusUpdatedAt > :afterUpdatedAt or (v.statusUpdatedAt = :afterUpdatedAt and v.id > :afterId)) " +
+            "order by v.statusUpdatedAt asc, v.id asc")
+    List<StuckVideo> findStuckQueued(@Param("cutoff") LocalDateTime cutoff,
+                                     @Param("publishedCutoff") LocalDateTime publishedCutoff,
+                                     @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                     @Param("afterId") Long afterId,
+                                     Limit limit);
+
+    // Jobs a tenant currently has in the pipeline; served by idx_videos_tenant_status
+    @Query("select count(v) from Video v where v.status in :statuses and v.tenantId = :tenantId")
+    long countByTenantInStatuses(@Param("tenantId") String tenantId,
+                                 @Param("statuses") Collection<VideoStatus> statuses);
+
+    // Status only, without loading the EAGER variants collection
+    @Query("select v.status from Video v where v.id = :id")
+    Optional<VideoStatus> findStatusById(@Param("id") Long id);
+
+    // [status, count] pairs for the videos.status gauges
+    @Query("select v.status, count(v) from Video v group by v.status")
+    List<Object[]> countGroupedByStatus();
+
+    @Query("select v.tenantId from Video v where v.id = :id")
+    Optional<String> findTenantIdById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.sizeBytes = :sizeBytes where v.id = :id")
+    int updateSizeBytes(@Param("id") Long id, @Param("sizeBytes") Long sizeBytes);
+
+    // Requeue only if nobody touched the video since the reaper read it
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.status = com.streaming.app.model.VideoStatus.QUEUED, " +
+            "v.retryCount = coalesce(v.retryCount, 0) + 1, v.nextRetryAt = :nextRetryAt, " +
+            "v.statusUpdatedAt = local datetime " +
+            "where v.id = :id and v.status = :status and v.statusUpdatedAt = :statusUpdatedAt")
+    int requeueIfUnchanged(@Param("id") Long id,
+                           @Param("status") VideoStatus status,
+                           @Param("statusUpdatedAt") LocalDateTime statusUpdatedAt,
+                           @Param("nextRetryAt") LocalDateTime nextRetryAt);
+
+    // Legacy rows without uploadedAt; best available timestamp so they can be paged again
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.uploadedAt = coalesce(v.statusUpdatedAt, v.processedAt, local datetime) " +
+            "where v.uploadedAt is null")
+    int backfillUploadedAt();
+
+    // Rows created before statusUpdatedAt existed
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.statusUpdatedAt = coalesce(v.processedAt, v.uploadedAt) where v.statusUpdatedAt is null")
+    int backfillStatusUpdatedAt();
+
+    interface StuckVideo {
+        Long getId();
+        String getS3Key();
+        LocalDateTime getStatusUpdatedAt();
+        Integer getRetryCount();
+        String getTenantId();
+        Long getSizeBytes();
+    }
 }
@@ -0,0 +1,114 @@
+package com.streaming.app.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers accepted ECS callbacks until they fall outside the timestamp skew window, so a retried or replayed
+ * callback is recognised before it reaches the controller. Entries are keyed on method, URI and signature: the
+ * HMAC covers only {@code timestamp.body}, so two different callbacks with an empty body and the same timestamp
+ * share a signature.
+ * <p>
+ * At capacity, completed entries are dropped oldest completion first; in-flight claims are never dropped, since
+ * that would let a duplicate run concurrently with the first delivery. When only in-flight claims are left, new
+ * callbacks are rejected until some finish.
+ */
+@Component
+@Slf4j
+public class CallbackReplayCache {
+
+    private final ConcurrentHashMap<String, Entry> seen = new ConcurrentHashMap<>();
+    // Keys in the order they completed; may still hold keys that were since reclaimed or evicted
+    private final ConcurrentLinkedQueue<String> completedOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    @Value("${ecs.callback.maxSkewMs:300000}")
+    private long allowedSkewMs;
+
+    @Value("${ecs.callback.replayCache.maxEntries:100000}")
+    private int maxEntries;
+
+    public static String key(String method, String uri, String signature) {
+        return method.toUpperCase(Locale.ROOT) + " " + uri + " " + signature.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Claims a callback. ACQUIRED means the caller should handle it and then {@link #complete} or {@link #release}
+     * it; IN_FLIGHT and COMPLETED mean the same callback was already claimed inside the window. REJECTED means
+     * the cache is full of in-flight claims and the callback should be retried later.
+     */
+    public Claim tryAcquire(String key, long timestampMs) {
+        // Beyond this point the validator rejects the timestamp anyway, so the entry is no longer needed
+        Entry claimed = new Entry(timestampMs + allowedSkewMs, false);
+        long now = System.currentTimeMillis();
+
+        if (seen.size() >= maxEntries && !seen.containsKey(key) && !evictCompleted(now)) {
+            rejections.incrementAndGet();
+            return Claim.REJECTED;
+        }
+
+        Entry previous = seen.putIfAbsent(key, claimed);
+        if (previous != null) {
+            if (previous.expiresAt() > now) {
+                duplicates.incrementAndGet();
+                return previous.completed() ? Claim.COMPLETED : Claim.IN_FLIGHT;
+            }
+            // Stale entry that hasn't been swept yet
+            if (!seen.replace(key, previous, claimed)) {
+                duplicates.incrementAndGet();
+                return Claim.IN_FLIGHT;
+            }
+        }
+        return Claim.ACQUIRED;
+    }
+
+    /**
+     * Marks a claimed callback as successfully handled; later duplicates are acknowledged without reprocessing.
+     */
+    public void complete(String key) {
+        if (seen.computeIfPresent(key, (k, entry) -> new Entry(entry.expiresAt(), true)) != null) {
+            completedOrder.add(key);
+        }
+    }
+
+    /**
+     * Forgets a callback whose request did not complete successfully, so the worker's retry is let through.
+     */
+    public void release(String key) {
+        seen.remove(key);
+    }
+
+    public Stats stats() {
+        return new Stats(duplicates.get(), evictions.get(), rejections.get(), seen.size());
+    }
+
+    // Drops completed entries, oldest completion first, until there is room for one more; false if none is left
+    private boolean evictCompleted(long now) {
+        String key;
+        while (seen.size() >= maxEntries && (key = completedOrder.poll()) != null) {
+            Entry entry = seen.get(key);
+            if (entry != null && entry.completed() && seen.remove(key, entry)) {
+                evictions.incrementAndGet();
+                if (entry.expiresAt() > now) {
+                    log.debug("Capacity reached, evicted a live completed entry");
+                }
+            }
+        }
+        return seen.size() < maxEntries;
+    }
+
+    public enum Claim { ACQUIRED, IN_FLIGHT, COMPLETED, REJECTED }
+
+    private record Entry(long expiresAt, boolean completed) {}
+
+    public record Stats(long duplicates, long evictions, long rejections, int size) {}
+}
@@ -0,0 +1,56 @@
+package com.streaming.app.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token bucket for the public contact form: {@code burst} submissions at once, refilled at
+ * {@code refillPerMinute}. Buckets that have refilled completely carry no state and are dropped when the map grows.
+ */
+@Component
+public class ContactRateLimiter {
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${contact.rateLimit.burst:5}")
+    private int burst;
+
+    @Value("${contact.rateLimit.refillPerMinute:5}")
+    private double refillPerMinute;
+
+    @Value("${contact.rateLimit.maxClients:100000}")
+    private int maxClients;
+
+    /**
+     * Takes one token for {@code clientKey}. Returns 0 when allowed, otherwise the seconds until a token is available.
+     */
+    public long tryAcquire(String clientKey) {
+        long now = System.nanoTime();
+        long[] retryAfter = new long[1];
+        // compute() runs atomically per key, so concurrent requests from one client can't both take the last token
+        buckets.compute(clientKey, (key, bucket) -> {
+            double tokens = bucket == null ? burst : refilled(bucket, now);
+            if (tokens >= 1) {
+                return new Bucket(tokens - 1, now);
+            }
+            double perSecond = refillPerMinute / 60;
+            retryAfter[0] = Math.max(1, (long) Math.ceil((1 - tokens) / perSecond));
+            return new Bucket(tokens, now);
+        });
+
+        if (buckets.size() > maxClients) {
+            buckets.entrySet().removeIf(e -> refilled(e.getValue(), now) >= burst);
+        }
+        return retryAfter[0];
+    }
+
+    private double refilled(Bucket bucket, long now) {
+        double elapsedMinutes = (double) (now - bucket.updatedAtNanos()) / TimeUnit.MINUTES.toNanos(1);
+        return Math.min(burst, bucket.tokens() + elapsedMinutes * refillPerMinute);
+    }
+
+    private record Bucket(double tokens, long updatedAtNanos) {}
+}
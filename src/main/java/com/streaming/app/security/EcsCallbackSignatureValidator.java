@@ -1,33 +1,54 @@
 package com.streaming.app.security;
 
-import jakarta.servlet.http.HttpServletRequest;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class EcsCallbackSignatureValidator {
 
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final HexFormat HEX = HexFormat.of();
+
     @Value("${ecs.callback.secret}")
     private String secret;
 
     @Value("${ecs.callback.maxSkewMs:300000}") // 5 min
     private long allowedSkewMs;
 
+    private SecretKeySpec key;
+    private Mac prototype;
+
+    // Pool of keyed Macs; Mac isn't thread-safe but is reusable after doFinal(). A pool rather than a
+    // ThreadLocal so reuse also works when every request runs on a fresh virtual thread.
+    private final ConcurrentLinkedQueue<Mac> macPool = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.prototype = createMac();
+    }
+
     /**
-     * Verify ECS callback signature.
+     * Verify ECS callback signature over the raw request bytes.
      */
-    public void verify(String rawBody, String providedSignature, String timestampHeader) {
+    public void verify(byte[] rawBody, String providedSignature, String timestampHeader) {
 
-        System.out.println("[EcsCallbackSignatureValidator] verify - timestamp: " + timestampHeader);
+        log.debug("verify - timestamp: {}", timestampHeader);
         if (timestampHeader == null || providedSignature == null) {
-            System.out.println("[EcsCallbackSignatureValidator] ERROR: Missing signature headers");
+            log.warn("Missing signature headers");
             throw new InvalidSignatureException("Missing ECS signature headers");
         }
 
@@ -40,46 +61,67 @@ public class EcsCallbackSignatureValidator {
 
         long now = Instant.now().toEpochMilli();
         if (Math.abs(now - timestamp) > allowedSkewMs) {
-            System.out.println("[EcsCallbackSignatureValidator] ERROR: Timestamp out of range - now: " + now + ", timestamp: " + timestamp);
+            log.warn("Timestamp out of range - now: {}, timestamp: {}", now, timestamp);
             throw new InvalidSignatureException("Timestamp too old or too new");
         }
 
-        String expectedSig = generateSignature(timestampHeader, rawBody);
+        byte[] provided;
+        try {
+            provided = HEX.parseHex(providedSignature);
+        } catch (IllegalArgumentException e) {
+            log.warn("Signature is not valid hex");
+            throw new InvalidSignatureException("Invalid ECS signature");
+        }
 
-        if (!constantTimeEquals(expectedSig, providedSignature)) {
-            System.out.println("[EcsCallbackSignatureValidator] ERROR: Signature mismatch");
+        // Constant-time comparison on the raw digest bytes
+        if (!MessageDigest.isEqual(computeMac(timestampHeader, rawBody), provided)) {
+            log.warn("Signature mismatch");
             throw new InvalidSignatureException("Invalid ECS signature");
         }
-        System.out.println("[EcsCallbackSignatureValidator] Signature verified successfully");
+        log.debug("Signature verified successfully");
     }
 
-    private String generateSignature(String timestamp, String body) {
-        try {
-            String data = timestamp + "." + body;
-
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder hex = new StringBuilder();
-            for (byte b : raw) {
-                hex.append(String.format("%02x", b));
-            }
-            return hex.toString();
+    /**
+     * Hex signature the ECS worker is expected to send for this timestamp and body.
+     */
+    public String sign(String timestamp, byte[] body) {
+        return HEX.formatHex(computeMac(timestamp, body));
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to compute ECS signature", e);
+    private byte[] computeMac(String timestamp, byte[] body) {
+        Mac mac = macPool.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            // HMAC over "<timestamp>.<body>" fed incrementally, no concatenated copy of the body
+            mac.update(timestamp.getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) '.');
+            return mac.doFinal(body);
+        } catch (RuntimeException e) {
+            mac.reset();
+            throw e;
+        } finally {
+            macPool.offer(mac);
         }
     }
 
-    /** Prevent timing attacks */
-    private boolean constantTimeEquals(String a, String b) {
-        if (a.length() != b.length()) return false;
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider doesn't support cloning; fall back to a freshly keyed instance
+            return createMac();
+        }
+    }
 
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to initialise ECS signature MAC", e);
         }
-        return result == 0;
     }
 }
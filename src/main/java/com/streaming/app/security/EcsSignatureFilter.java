@@ -1,11 +1,15 @@
 package com.streaming.app.security;
 
 import com.streaming.app.util.ResponseMessages;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -14,16 +18,24 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
 
 @Component
-@Order(Ordered.HIGHEST_PRECEDENCE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)   // after CorrelationIdFilter
 @RequiredArgsConstructor
+@Slf4j
 public class EcsSignatureFilter extends OncePerRequestFilter {
 
     private final EcsCallbackSignatureValidator ecsCallbackSignatureValidator;
+    private final CallbackReplayCache callbackReplayCache;
+    private final MeterRegistry meterRegistry;
+
+    // The body is buffered before the signature is checked, so it has to be bounded for unauthenticated callers
+    @Value("${ecs.callback.maxBodyBytes:1048576}")
+    private int maxBodyBytes;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -32,66 +44,148 @@ public class EcsSignatureFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         String method = request.getMethod();
         
-        System.out.println("[EcsSignatureFilter] Request: " + method + " " + path);
+        log.debug("Request: {} {}", method, path);
         
         // Only validate ECS callbacks under /api/videos and only for POST requests
         if (!path.startsWith("/api/videos") || !"POST".equalsIgnoreCase(method)) {
-            System.out.println("[EcsSignatureFilter] Bypassing signature validation (not POST to /api/videos)");
+            log.debug("Bypassing signature validation (not POST to /api/videos)");
             filterChain.doFilter(request, response);
             return;
         }
 
+        // Reject oversized bodies before allocating anything for them
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            rejectTooLarge(response, request.getContentLengthLong());
+            return;
+        }
+
         // Create a wrapper that allows reading the body multiple times
-        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request);
+        CachedBodyHttpServletRequest cachedRequest;
+        try {
+            cachedRequest = new CachedBodyHttpServletRequest(request, maxBodyBytes);
+        } catch (BodyTooLargeException e) {
+            rejectTooLarge(response, -1);
+            return;
+        }
         
-        // Read the body for signature validation
-        String body = cachedRequest.getBody();
+        // Raw bytes exactly as sent; the HMAC is computed over these without any decoding
+        byte[] body = cachedRequest.getCachedBody();
         
         String signature = request.getHeader("X-ECS-Signature");
         String timestamp = request.getHeader("X-ECS-Timestamp");
 
-        System.out.println("[EcsSignatureFilter] Validating signature - timestamp: " + timestamp);
-        System.out.println("[EcsSignatureFilter] Body: '" + body + "'");
+        log.debug("Validating signature - timestamp: {}", timestamp);
         
         if (signature == null || timestamp == null) {
-            System.out.println("[EcsSignatureFilter] ERROR: Missing signature headers");
+            log.warn("Missing signature headers");
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write(ResponseMessages.MISSING_SIGNATURE_HEADERS);
             return;
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             ecsCallbackSignatureValidator.verify(body, signature, timestamp);
-            System.out.println("[EcsSignatureFilter] Signature validation passed");
+            sample.stop(verifyTimer("valid"));
+            log.debug("Signature validation passed");
         } catch (com.streaming.app.security.InvalidSignatureException ex) {
-            System.out.println("[EcsSignatureFilter] ERROR: Invalid signature - " + ex.getMessage());
+            sample.stop(verifyTimer("invalid"));
+            log.warn("Invalid signature - {}", ex.getMessage());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write(ResponseMessages.INVALID_SIGNATURE);
             return;
         } catch (Exception ex) {
-            System.out.println("[EcsSignatureFilter] ERROR: Signature validation exception - " + ex.getMessage());
+            sample.stop(verifyTimer("error"));
+            log.warn("Signature validation exception - {}", ex.getMessage());
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             response.getWriter().write(ResponseMessages.SIGNATURE_VALIDATION_FAILED + ex.getMessage());
             return;
         }
 
-        filterChain.doFilter(cachedRequest, response);
+        // Same endpoint and signature means same timestamp and body: a retry/replay of a callback we've already seen
+        String replayKey = CallbackReplayCache.key(method, path, signature);
+        switch (callbackReplayCache.tryAcquire(replayKey, Long.parseLong(timestamp))) {
+            case COMPLETED -> {
+                log.info("Duplicate callback within skew window, short-circuiting");
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getWriter().write(ResponseMessages.DUPLICATE_CALLBACK);
+                return;
+            }
+            case IN_FLIGHT -> {
+                // The first delivery may still fail, so don't acknowledge this one; the worker retries on 409
+                log.info("Duplicate callback while the first delivery is still in progress");
+                response.setStatus(HttpServletResponse.SC_CONFLICT);
+                response.getWriter().write(ResponseMessages.CALLBACK_IN_PROGRESS);
+                return;
+            }
+            case REJECTED -> {
+                // Every slot is held by a callback still being handled; evicting one would let its duplicate through
+                log.warn("Callback replay cache full of in-flight callbacks, rejecting");
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", "1");
+                response.getWriter().write(ResponseMessages.CALLBACK_CAPACITY_EXCEEDED);
+                return;
+            }
+            case ACQUIRED -> { }
+        }
+
+        try {
+            filterChain.doFilter(cachedRequest, response);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            callbackReplayCache.release(replayKey);
+            throw ex;
+        }
+
+        // Only successfully handled callbacks count as seen; failed ones must stay retryable
+        if (response.getStatus() >= 400) {
+            callbackReplayCache.release(replayKey);
+        } else {
+            callbackReplayCache.complete(replayKey);
+        }
     }
     
+    private void rejectTooLarge(HttpServletResponse response, long contentLength) throws IOException {
+        log.warn("Callback body too large ({} bytes, limit {})", contentLength < 0 ? "unknown" : contentLength, maxBodyBytes);
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.getWriter().write(ResponseMessages.CALLBACK_BODY_TOO_LARGE);
+    }
+
+    private Timer verifyTimer(String outcome) {
+        return meterRegistry.timer("ecs.callback.verify", "outcome", outcome);
+    }
+
     // Inner class to cache the request body
     private static class CachedBodyHttpServletRequest extends jakarta.servlet.http.HttpServletRequestWrapper {
         private byte[] cachedBody;
 
-        public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+        public CachedBodyHttpServletRequest(HttpServletRequest request, int maxBytes) throws IOException {
             super(request);
-            // Read and cache the body
-            BufferedReader reader = request.getReader();
-            String body = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-            this.cachedBody = body.getBytes(StandardCharsets.UTF_8);
+            this.cachedBody = readBody(request, maxBytes);
         }
 
-        public String getBody() {
-            return new String(this.cachedBody, StandardCharsets.UTF_8);
+        // Single read into a buffer sized from Content-Length when the client sent one (already checked against maxBytes)
+        private static byte[] readBody(HttpServletRequest request, int maxBytes) throws IOException {
+            InputStream in = request.getInputStream();
+            int contentLength = request.getContentLength();
+            if (contentLength < 0) {
+                // Chunked: read one byte past the limit to tell "exactly maxBytes" from "more"
+                byte[] body = in.readNBytes(maxBytes + 1);
+                if (body.length > maxBytes) {
+                    throw new BodyTooLargeException();
+                }
+                return body;
+            }
+
+            byte[] body = new byte[contentLength];
+            int read = in.readNBytes(body, 0, contentLength);
+            if (read != contentLength) {
+                throw new IOException("Request body shorter than Content-Length: " + read + " of " + contentLength);
+            }
+            return body;
+        }
+
+        public byte[] getCachedBody() {
+            return this.cachedBody;
         }
 
         @Override
@@ -106,6 +200,12 @@ public class EcsSignatureFilter extends OncePerRequestFilter {
         }
     }
 
+    private static class BodyTooLargeException extends IOException {
+        BodyTooLargeException() {
+            super("Request body exceeds limit");
+        }
+    }
+
     private static class CachedBodyServletInputStream extends jakarta.servlet.ServletInputStream {
         private ByteArrayInputStream byteArrayInputStream;
 
@@ -132,5 +232,25 @@ public class EcsSignatureFilter extends OncePerRequestFilter {
         public int read() throws IOException {
             return byteArrayInputStream.read();
         }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return byteArrayInputStream.read(b, off, len);
+        }
+
+        @Override
+        public byte[] readAllBytes() {
+            return byteArrayInputStream.readAllBytes();
+        }
+
+        @Override
+        public int available() {
+            return byteArrayInputStream.available();
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            return byteArrayInputStream.transferTo(out);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,368 @@
+package com.streaming.app.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import com.streaming.app.util.ThreadFactories;
+
+/**
+ * Byte-bounded LRU of whole variant objects on local disk, read back through memory-mapped files.
+ * Only the key index lives on the heap; concurrent misses for the same key share a single S3 fill.
+ * A re-transcode can overwrite an object under the same key, so entries are re-checked against the
+ * S3 ETag (HEAD) at most every {@code streaming.diskCache.revalidateSeconds} and dropped when it changed.
+ */
+@Component
+@Slf4j
+public class DiskSegmentCache {
+
+    // Every file the cache writes matches this, so startup cleanup never touches anything else in the directory
+    private static final String FILE_PREFIX = "segcache-";
+    private static final Pattern OWN_FILE = Pattern.compile(FILE_PREFIX + "[0-9a-f]{64}(\\.part)?");
+
+    private final S3Service s3Service;
+
+    @Value("${streaming.diskCache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${streaming.diskCache.dir:${java.io.tmpdir}/video-segment-cache}")
+    private Path directory;
+
+    @Value("${streaming.diskCache.maxBytes:10737418240}")        // 10 GiB
+    private long maxBytes;
+
+    @Value("${streaming.diskCache.maxObjectBytes:536870912}")    // 512 MiB; at most 2 GiB - 1 (one mapping per object)
+    private long maxObjectBytes;
+
+    @Value("${streaming.diskCache.revalidateSeconds:60}")
+    private long revalidateSeconds;
+
+    @Value("${streaming.diskCache.fillConcurrency:4}")
+    private int fillConcurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Access-ordered index guarded by a lock (not synchronized, so virtual threads don't pin on it)
+    private final LinkedHashMap<String, CachedObject> index = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalBytes;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<CachedObject>>> inFlight = new ConcurrentHashMap<>();
+    private ExecutorService fillExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong fills = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DiskSegmentCache(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // A single MappedByteBuffer (and the int positions used to read it) can't address more than this
+        if (maxObjectBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("streaming.diskCache.maxObjectBytes must be at most "
+                    + Integer.MAX_VALUE + ", was " + maxObjectBytes);
+        }
+        // The index is in-memory only, so our files left over from a previous run are unreachable.
+        // The directory may be shared (e.g. /tmp), so only files with our own naming are removed.
+        Files.createDirectories(directory);
+        int removed = 0;
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (OWN_FILE.matcher(file.getFileName().toString()).matches() && Files.isRegularFile(file)) {
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} stale cache files from {}", removed, directory);
+        }
+        this.fillExecutor = ThreadFactories.blockingExecutor("disk-cache-fill", fillConcurrency, virtualThreads);
+        log.info("Caching up to {} bytes in {}", maxBytes, directory);
+    }
+
+    public boolean accepts(long objectSize) {
+        return enabled && objectSize > 0 && objectSize <= maxObjectBytes;
+    }
+
+    public Optional<CachedObject> get(String s3Key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedObject cached;
+        lock.lock();
+        try {
+            cached = index.get(s3Key);
+        } finally {
+            lock.unlock();
+        }
+        if (cached != null && !isCurrent(s3Key, cached)) {
+            cached = null;
+        }
+        (cached != null ? hits : misses).incrementAndGet();
+        return Optional.ofNullable(cached);
+    }
+
+    // HEADs the object at most once per revalidateSeconds; a changed or deleted object is dropped from the cache
+    private boolean isCurrent(String s3Key, CachedObject cached) {
+        long now = System.currentTimeMillis();
+        long validatedAt = cached.validatedAtMillis().get();
+        if (now - validatedAt < revalidateSeconds * 1000L || !cached.validatedAtMillis().compareAndSet(validatedAt, now)) {
+            // Fresh, or another request is already checking it
+            return true;
+        }
+        try {
+            String eTag = s3Service.headProcessedObject(s3Key).eTag();
+            if (Objects.equals(eTag, cached.eTag())) {
+                return true;
+            }
+            log.info("Cached copy of {} is stale (ETag {} -> {})", s3Key, cached.eTag(), eTag);
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                // Can't tell; keep serving the copy and check again next period
+                log.debug("Revalidation of {} skipped: {}", s3Key, e.getMessage());
+                return true;
+            }
+            log.info("Cached object {} no longer exists", s3Key);
+        } catch (RuntimeException e) {
+            log.debug("Revalidation of {} skipped: {}", s3Key, e.getMessage());
+            return true;
+        }
+        remove(s3Key, cached);
+        return false;
+    }
+
+    /**
+     * Starts (or joins) the download of {@code s3Key} into the cache. Concurrent callers for the same key
+     * receive the same future, so the object is fetched from S3 once.
+     */
+    public CompletableFuture<Optional<CachedObject>> fill(String s3Key) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        lock.lock();
+        try {
+            CachedObject cached = index.get(s3Key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(Optional.of(cached));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture<Optional<CachedObject>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedObject>> existing = inFlight.putIfAbsent(s3Key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        fillExecutor.execute(() -> {
+            try {
+                future.complete(Optional.of(download(s3Key)));
+            } catch (Exception e) {
+                log.warn("Fill failed for {}: {}", s3Key, e.getMessage());
+                future.complete(Optional.empty());
+            } finally {
+                inFlight.remove(s3Key, future);
+            }
+        });
+        return future;
+    }
+
+    // Writes [start, end] of a cached object to {@code out}, chunked through {@code buffer}
+    public void write(CachedObject cached, long start, long end, OutputStream out, byte[] buffer) throws IOException {
+        ByteBuffer view = cached.mapped().duplicate();
+        view.position((int) start);
+        long remaining = end - start + 1;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(buffer.length, remaining);
+            view.get(buffer, 0, chunk);
+            out.write(buffer, 0, chunk);
+            remaining -= chunk;
+        }
+        bytesServed.addAndGet(end - start + 1);
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            long lookups = hits.get() + misses.get();
+            double hitRatio = lookups == 0 ? 0 : (double) hits.get() / lookups;
+            return new Stats(hits.get(), misses.get(), hitRatio, bytesServed.get(), fills.get(),
+                    evictions.get(), index.size(), totalBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedObject download(String s3Key) throws IOException {
+        Path target = directory.resolve(fileName(s3Key));
+        Path temp = directory.resolve(target.getFileName() + ".part");
+
+        GetObjectResponse meta;
+        MappedByteBuffer mapped;
+        try {
+            try (ResponseInputStream<GetObjectResponse> in = s3Service.getProcessedObject(s3Key, null, null)) {
+                meta = in.response();
+                if (meta.contentLength() != null && meta.contentLength() > maxObjectBytes) {
+                    in.abort();
+                    throw new IOException("Object too large for disk cache: " + meta.contentLength());
+                }
+                copyAtMost(in, temp);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Nothing is indexed yet, so neither file is reachable
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+
+        CachedObject cached = new CachedObject(target, mapped, mapped.capacity(),
+                meta.eTag(), meta.lastModified(), meta.contentType(), new AtomicLong(System.currentTimeMillis()));
+        fills.incrementAndGet();
+        insert(s3Key, cached);
+        log.debug("Cached {} ({} bytes)", s3Key, cached.size());
+        return cached;
+    }
+
+    // Copies at most maxObjectBytes; S3 doesn't always send Content-Length, so the size is enforced here too
+    private void copyAtMost(ResponseInputStream<GetObjectResponse> in, Path temp) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long copied = 0;
+        try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxObjectBytes) {
+                    in.abort();
+                    throw new IOException("Object too large for disk cache: more than " + maxObjectBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void remove(String s3Key, CachedObject cached) {
+        lock.lock();
+        try {
+            if (!index.remove(s3Key, cached)) {
+                return;
+            }
+            totalBytes -= cached.size();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(cached.path());
+        } catch (IOException e) {
+            log.warn("Could not delete stale file {}: {}", cached.path(), e.getMessage());
+        }
+    }
+
+    private void insert(String s3Key, CachedObject cached) {
+        List<Path> toDelete = new ArrayList<>();
+        lock.lock();
+        try {
+            CachedObject previous = index.put(s3Key, cached);
+            if (previous != null) {
+                totalBytes -= previous.size();
+                if (!previous.path().equals(cached.path())) {
+                    toDelete.add(previous.path());
+                }
+            }
+            totalBytes += cached.size();
+
+            Iterator<Map.Entry<String, CachedObject>> eldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedObject> entry = eldest.next();
+                if (entry.getValue() == cached) {
+                    continue;
+                }
+                totalBytes -= entry.getValue().size();
+                toDelete.add(entry.getValue().path());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Readers holding a mapping keep working after the unlink; the space is reclaimed when they finish
+        for (Path path : toDelete) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete evicted file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static String fileName(String s3Key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s3Key.getBytes(StandardCharsets.UTF_8));
+            return FILE_PREFIX + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fillExecutor != null) fillExecutor.shutdownNow();
+    }
+
+    public record CachedObject(Path path, MappedByteBuffer mapped, long size,
+                               String eTag, Instant lastModified, String contentType, AtomicLong validatedAtMillis) {}
+
+    public record Stats(long hits, long misses, double hitRatio, long bytesServed, long fills,
+                        long evictions, int entries, long bytes) {}
+}
@@ -1,17 +1,47 @@
 package com.streaming.app.service;
 
 import com.streaming.app.dto.ContactForm;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.streaming.app.util.ThreadFactories;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues contact-form mail and sends it from background dispatchers. Each dispatcher drains up to
+ * {@code batchSize} queued messages and hands them to one {@link JavaMailSender#send(SimpleMailMessage...)} call,
+ * which delivers the whole batch over a single SMTP (STARTTLS) session. Transient failures are retried with backoff.
+ */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class EmailService {
 
-    @Autowired
-    private JavaMailSender mailSender;
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.email.support:support@fluxmedia.in}")
     private String supportEmail;
@@ -20,83 +50,244 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public void sendContactFormEmail(ContactForm form) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-
-            message.setTo(supportEmail);
-            message.setSubject("New Contact Form Submission - fluxmedia");
-
-            // GoDaddy requires FROM == authenticated mailbox
-            message.setFrom(fromEmail);
-
-            // Reply-to should be user's email
-            message.setReplyTo(form.getEmail());
-
-            String emailBody = String.format("""
-                New contact form submission from fluxmedia website:
-                
-                Name: %s
-                Email: %s
-                
-                Message:
-                %s
-                
-                ---
-                This is an automated message from fluxmedia contact form.
-                """,
-                    form.getName(),
-                    form.getEmail(),
-                    form.getMessage()
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
-
-            System.out.println("Contact form email sent successfully from: " + form.getEmail());
-
-        } catch (Exception e) {
-            System.out.println("Failed to send contact form email from: " + form.getEmail());
-            throw new RuntimeException("Failed to send email. Please try again later.", e);
+    @Value("${mail.dispatch.queueCapacity:1000}")
+    private int queueCapacity;
+
+    @Value("${mail.dispatch.threads:2}")
+    private int dispatchThreads;
+
+    @Value("${mail.dispatch.batchSize:20}")
+    private int batchSize;
+
+    @Value("${mail.dispatch.maxAttempts:3}")
+    private int maxAttempts;
+
+    @Value("${mail.dispatch.baseBackoffMs:2000}")
+    private long baseBackoffMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private BlockingQueue<OutgoingMail> queue;
+    private List<Thread> dispatchers;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("mail.queued", queue, BlockingQueue::size).register(meterRegistry);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("mail-retry", false));
+        this.running = true;
+        this.dispatchers = new ArrayList<>(dispatchThreads);
+        for (int i = 0; i < dispatchThreads; i++) {
+            Thread dispatcher = ThreadFactories.named("mail-dispatch", virtualThreads).newThread(this::dispatchLoop);
+            dispatcher.start();
+            dispatchers.add(dispatcher);
+        }
+    }
+
+    /**
+     * Queues the support notification and the submitter's confirmation. Returns false (nothing queued)
+     * when the queue can't take both, so the caller can shed load instead of blocking.
+     */
+    public boolean submitContactForm(ContactForm form) {
+        if (!running || queue.remainingCapacity() < 2) {
+            return false;
+        }
+        // The support mail matters more, so it goes first; the confirmation is best-effort
+        if (!queue.offer(new OutgoingMail(contactFormEmail(form), "contact"))) {
+            return false;
+        }
+        if (!queue.offer(new OutgoingMail(confirmationEmail(form), "confirmation"))) {
+            log.warn("Mail queue full, confirmation email dropped");
+        }
+        return true;
+    }
+
+    private SimpleMailMessage contactFormEmail(ContactForm form) {
+        SimpleMailMessage message = new SimpleMailMessage();
+
+        message.setTo(supportEmail);
+        message.setSubject("New Contact Form Submission - fluxmedia");
+
+        // GoDaddy requires FROM == authenticated mailbox
+        message.setFrom(fromEmail);
+
+        // Reply-to should be user's email
+        message.setReplyTo(form.getEmail());
+
+        String emailBody = String.format("""
+            New contact form submission from fluxmedia website:
+
+            Name: %s
+            Email: %s
+
+            Message:
+            %s
+
+            ---
+            This is an automated message from fluxmedia contact form.
+            """,
+                form.getName(),
+                form.getEmail(),
+                form.getMessage()
+        );
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    private SimpleMailMessage confirmationEmail(ContactForm form) {
+        SimpleMailMessage message = new SimpleMailMessage();
+
+        message.setTo(form.getEmail());
+        message.setSubject("We received your message - fluxmedia");
+
+        // FROM must still match authenticated mailbox
+        message.setFrom(fromEmail);
+
+        String emailBody = String.format("""
+            Hi %s,
+
+            Thank you for contacting fluxmedia! We have received your message and will get back to you soon.
+
+            Your message:
+            %s
+
+            Best regards,
+            fluxmedia Team
+
+            ---
+            This is an automated confirmation email.
+            """,
+                form.getName(),
+                form.getMessage()
+        );
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    private void dispatchLoop() {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutgoingMail first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
         }
     }
 
-    public void sendConfirmationEmail(ContactForm form) {
+    private void send(List<OutgoingMail> batch) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-
-            message.setTo(form.getEmail());
-            message.setSubject("We received your message - fluxmedia");
-
-            // FROM must still match authenticated mailbox
-            message.setFrom(fromEmail);
-
-            String emailBody = String.format("""
-                Hi %s,
-                
-                Thank you for contacting fluxmedia! We have received your message and will get back to you soon.
-                
-                Your message:
-                %s
-                
-                Best regards,
-                fluxmedia Team
-                
-                ---
-                This is an automated confirmation email.
-                """,
-                    form.getName(),
-                    form.getMessage()
-            );
-
-            message.setText(emailBody);
-            mailSender.send(message);
-
-            System.out.println("Confirmation email sent successfully to: " + form.getEmail());
-
-        } catch (Exception e) {
-            System.out.println("Failed to send confirmation email to: " + form.getEmail());
-            // confirmation email is optional, no need to throw
+            mailSender.send(batch.stream().map(OutgoingMail::message).toArray(SimpleMailMessage[]::new));
+            batch.forEach(mail -> countSent(mail, "ok"));
+            log.info("Sent {} emails", batch.size());
+        } catch (MailSendException e) {
+            // Per-message failures: everything not listed was delivered
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                batch.forEach(mail -> retryOrDrop(mail, e));
+                return;
+            }
+            for (OutgoingMail mail : batch) {
+                Exception cause = failed.get(mail.message());
+                if (cause == null) {
+                    countSent(mail, "ok");
+                } else {
+                    retryOrDrop(mail, cause);
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(mail -> retryOrDrop(mail, e));
+        }
+    }
+
+    private void retryOrDrop(OutgoingMail mail, Exception cause) {
+        int attempt = mail.attempts() + 1;
+        if (!isTransient(cause) || attempt >= maxAttempts || !running) {
+            log.warn("Giving up on {} email after {} attempts: {}", mail.kind(), attempt, cause.getMessage());
+            countSent(mail, "failed");
+            return;
+        }
+        long backoffMs = baseBackoffMs << (attempt - 1);
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(mail.retry())) {
+                log.warn("Mail queue full, dropping {} email retry", mail.kind());
+                countSent(mail, "failed");
+            }
+        }, backoffMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Bad credentials, a malformed message or a rejected address won't get better by retrying; connection-level
+    // errors and 4xx SMTP replies might. Per-message causes from MailSendException are raw JavaMail exceptions.
+    static boolean isTransient(Exception e) {
+        if (e instanceof MailAuthenticationException
+                || e instanceof MailParseException
+                || e instanceof MailPreparationException) {
+            return false;
+        }
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            int code = smtpReturnCode(t);
+            if (code >= 500) {
+                return false;
+            }
+            if (code >= 400) {
+                return true;
+            }
+            if (t instanceof AddressException) {
+                return false;
+            }
+            if (t instanceof SendFailedException failed
+                    && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int smtpReturnCode(Throwable t) {
+        if (t instanceof SMTPAddressFailedException e) {
+            return e.getReturnCode();
+        }
+        if (t instanceof SMTPSendFailedException e) {
+            return e.getReturnCode();
+        }
+        return -1;
+    }
+
+    private void countSent(OutgoingMail mail, String outcome) {
+        meterRegistry.counter("mail.sent", "kind", mail.kind(), "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        // Dispatchers keep draining what is already queued before they exit
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        retryScheduler.shutdownNow();
+    }
+
+    private record OutgoingMail(SimpleMailMessage message, String kind, int attempts) {
+        OutgoingMail(SimpleMailMessage message, String kind) {
+            this(message, kind, 0);
+        }
+
+        OutgoingMail retry() {
+            return new OutgoingMail(message, kind, attempts + 1);
         }
     }
-}
\ No newline at end of file
+}
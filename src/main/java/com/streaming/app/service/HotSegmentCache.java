@@ -0,0 +1,106 @@
+package com.streaming.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory LRU of the first {@code prefixBytes} of each streamed variant, bounded by total bytes.
+ * Player start-up and most seeks-to-start are then served without an S3 round-trip.
+ */
+@Component
+public class HotSegmentCache {
+
+    @Value("${streaming.hotCache.prefixBytes:2097152}")   // 2 MiB
+    private int prefixBytes;
+
+    @Value("${streaming.hotCache.maxBytes:268435456}")    // 256 MiB
+    private long maxBytes;
+
+    // Access-ordered map guarded by a lock (not synchronized, so virtual threads don't pin on it)
+    private final LinkedHashMap<String, Prefix> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public int prefixBytes() {
+        return prefixBytes;
+    }
+
+    public Optional<Prefix> get(String s3Key) {
+        lock.lock();
+        try {
+            Prefix prefix = entries.get(s3Key);
+            (prefix != null ? hits : misses).incrementAndGet();
+            return Optional.ofNullable(prefix);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String s3Key, Prefix prefix) {
+        if (prefix.bytes().length > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            Prefix previous = entries.put(s3Key, prefix);
+            if (previous != null) {
+                totalBytes -= previous.bytes().length;
+            }
+            totalBytes += prefix.bytes().length;
+
+            Iterator<Map.Entry<String, Prefix>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Prefix> entry = eldest.next();
+                totalBytes -= entry.getValue().bytes().length;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String s3Key) {
+        lock.lock();
+        try {
+            Prefix removed = entries.remove(s3Key);
+            if (removed != null) {
+                totalBytes -= removed.bytes().length;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), totalBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Leading bytes of an object plus the metadata needed to answer range requests without S3.
+     */
+    public record Prefix(byte[] bytes, long objectSize, String eTag, Instant lastModified, String contentType) {
+        public boolean isComplete() {
+            return bytes.length == objectSize;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes) {}
+}
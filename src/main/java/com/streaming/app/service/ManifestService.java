@@ -0,0 +1,309 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoVariant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Builds HLS and DASH manifests from a processed video's stored variants. Media URLs are presigned,
+ * so generated manifests are cached for less than the presigned URL lifetime.
+ * Two kinds of rendition are listed: segmented ones (init + numbered fMP4 segments reported by the transcoder)
+ * and single-file fragmented MP4s with a global sidx, which are addressed by byte range (DASH on-demand
+ * SegmentBase, HLS EXT-X-BYTERANGE). The sidx is read from the head of the object on first use.
+ * A plain progressive MP4 is neither and is served through the download/stream endpoints instead.
+ * Methods return empty when nothing is streamable.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ManifestService {
+
+    private static final int URL_EXPIRATION_SECONDS = 3600;
+
+    // Fallback peak bitrates when the transcoder didn't report one (BANDWIDTH is mandatory in HLS)
+    private static final Map<String, Long> DEFAULT_BANDWIDTH = Map.of(
+            "1080p", 5_000_000L,
+            "720p", 2_800_000L,
+            "480p", 1_400_000L,
+            "360p", 800_000L
+    );
+
+    private final S3Service s3Service;
+
+    private final ConcurrentHashMap<String, CachedManifest> cache = new ConcurrentHashMap<>();
+
+    // Processed objects never change, so a probe result (including "no index") is kept for good
+    private final ConcurrentHashMap<String, Optional<Mp4SegmentIndex>> indexes = new ConcurrentHashMap<>();
+
+    @Value("${manifest.cache.ttlSeconds:300}")
+    private long ttlSeconds;
+
+    @Value("${manifest.cache.maxEntries:5000}")
+    private int maxEntries;
+
+    // How much of a single-file MP4 is read to find its sidx; ~12 bytes per fragment after the moov
+    @Value("${manifest.probeBytes:262144}")
+    private int probeBytes;
+
+    public Optional<String> hlsMasterPlaylist(Video video) {
+        if (playableVariants(video).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(cached(video.getId() + ":master", () -> {
+            StringBuilder m3u8 = new StringBuilder(256)
+                    .append("#EXTM3U\n")
+                    .append("#EXT-X-VERSION:7\n")
+                    .append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+
+            for (Rendition rendition : playableVariants(video)) {
+                VideoVariant variant = rendition.variant();
+                m3u8.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth(variant));
+                if (variant.getWidth() != null && variant.getHeight() != null) {
+                    m3u8.append(",RESOLUTION=").append(variant.getWidth()).append('x').append(variant.getHeight());
+                }
+                if (variant.getCodecs() != null) {
+                    m3u8.append(",CODECS=\"").append(variant.getCodecs()).append('"');
+                }
+                // Relative to /api/video/{id}/master.m3u8
+                m3u8.append('\n').append("hls/").append(variant.getQuality()).append(".m3u8\n");
+            }
+            return m3u8.toString();
+        }));
+    }
+
+    public Optional<String> hlsMediaPlaylist(Video video, String quality) {
+        return findVariant(video, quality).map(rendition -> cached(video.getId() + ":hls:" + quality, () -> {
+            VideoVariant variant = rendition.variant();
+            List<Segment> segments = segments(rendition);
+            double target = segments.stream().mapToDouble(Segment::durationSeconds).max().orElse(1);
+
+            StringBuilder m3u8 = new StringBuilder(128 + segments.size() * 512)
+                    .append("#EXTM3U\n")
+                    .append("#EXT-X-VERSION:7\n")
+                    .append("#EXT-X-TARGETDURATION:").append(Math.max(1, (long) Math.ceil(target))).append('\n')
+                    .append("#EXT-X-MEDIA-SEQUENCE:0\n")
+                    .append("#EXT-X-PLAYLIST-TYPE:VOD\n")
+                    .append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+            if (rendition.index() != null) {
+                // One presigned URL for the whole file; the init segment and fragments are byte ranges of it
+                String url = presign(variant.getS3Key());
+                m3u8.append("#EXT-X-MAP:URI=\"").append(url)
+                        .append("\",BYTERANGE=\"").append(rendition.index().initEnd() + 1).append("@0\"\n");
+                for (Segment segment : segments) {
+                    m3u8.append("#EXTINF:").append(String.format(Locale.ROOT, "%.3f", segment.durationSeconds())).append(",\n")
+                            .append("#EXT-X-BYTERANGE:").append(segment.length()).append('@').append(segment.offset()).append('\n')
+                            .append(url).append('\n');
+                }
+                return m3u8.append("#EXT-X-ENDLIST\n").toString();
+            }
+            if (variant.getInitSegmentKey() != null) {
+                m3u8.append("#EXT-X-MAP:URI=\"").append(presign(variant.getInitSegmentKey())).append("\"\n");
+            }
+            for (Segment segment : segments) {
+                m3u8.append("#EXTINF:").append(String.format(Locale.ROOT, "%.3f", segment.durationSeconds())).append(",\n")
+                        .append(presign(segment.s3Key())).append('\n');
+            }
+            return m3u8.append("#EXT-X-ENDLIST\n").toString();
+        }));
+    }
+
+    public Optional<String> dashManifest(Video video) {
+        List<Rendition> renditions = playableVariants(video);
+        if (renditions.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(cached(video.getId() + ":mpd", () -> {
+            double duration = renditions.stream()
+                    .mapToDouble(Rendition::durationSeconds)
+                    .max().orElse(0);
+
+            StringBuilder mpd = new StringBuilder(1024)
+                    .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                    .append("<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"static\" ")
+                    .append("profiles=\"urn:mpeg:dash:profile:isoff-on-demand:2011\" minBufferTime=\"PT2S\"");
+            if (duration > 0) {
+                mpd.append(" mediaPresentationDuration=\"").append(isoDuration(duration)).append('"');
+            }
+            mpd.append(">\n  <Period>\n    <AdaptationSet mimeType=\"video/mp4\" segmentAlignment=\"true\">\n");
+
+            for (Rendition rendition : renditions) {
+                VideoVariant variant = rendition.variant();
+                mpd.append("      <Representation id=\"").append(xml(variant.getQuality()))
+                        .append("\" bandwidth=\"").append(bandwidth(variant)).append('"');
+                if (variant.getWidth() != null && variant.getHeight() != null) {
+                    mpd.append(" width=\"").append(variant.getWidth())
+                            .append("\" height=\"").append(variant.getHeight()).append('"');
+                }
+                if (variant.getCodecs() != null) {
+                    mpd.append(" codecs=\"").append(xml(variant.getCodecs())).append('"');
+                }
+                mpd.append(">\n");
+
+                Mp4SegmentIndex index = rendition.index();
+                if (index != null) {
+                    mpd.append("        <BaseURL>").append(xml(presign(variant.getS3Key()))).append("</BaseURL>\n")
+                            .append("        <SegmentBase indexRange=\"").append(index.indexStart()).append('-')
+                            .append(index.indexEnd()).append("\" timescale=\"").append(index.timescale()).append("\">\n")
+                            .append("          <Initialization range=\"0-").append(index.initEnd()).append("\"/>\n")
+                            .append("        </SegmentBase>\n")
+                            .append("      </Representation>\n");
+                    continue;
+                }
+                mpd.append("        <SegmentList duration=\"")
+                        .append(Math.round(variant.getSegmentDurationSeconds() * 1000))
+                        .append("\" timescale=\"1000\">\n");
+                if (variant.getInitSegmentKey() != null) {
+                    mpd.append("          <Initialization sourceURL=\"")
+                            .append(xml(presign(variant.getInitSegmentKey()))).append("\"/>\n");
+                }
+                for (Segment segment : segments(rendition)) {
+                    mpd.append("          <SegmentURL media=\"").append(xml(presign(segment.s3Key()))).append("\"/>\n");
+                }
+                mpd.append("        </SegmentList>\n");
+                mpd.append("      </Representation>\n");
+            }
+            return mpd.append("    </AdaptationSet>\n  </Period>\n</MPD>\n").toString();
+        }));
+    }
+
+    // Segmented or sidx-indexed video renditions (thumbnails and progressive MP4s are skipped), highest bitrate first
+    private List<Rendition> playableVariants(Video video) {
+        List<Rendition> renditions = new ArrayList<>();
+        for (VideoVariant variant : video.getVariants()) {
+            boolean isVideo = variant.getContentType() == null || variant.getContentType().startsWith("video/");
+            if (!isVideo) {
+                continue;
+            }
+            if (isSegmented(variant)) {
+                renditions.add(new Rendition(variant, null));
+            } else {
+                segmentIndex(variant).ifPresent(index -> renditions.add(new Rendition(variant, index)));
+            }
+        }
+        renditions.sort(Comparator.comparingLong((Rendition r) -> bandwidth(r.variant())).reversed());
+        return renditions;
+    }
+
+    private Optional<Rendition> findVariant(Video video, String quality) {
+        return playableVariants(video).stream()
+                .filter(r -> r.variant().getQuality().equals(quality))
+                .findFirst();
+    }
+
+    private Optional<Mp4SegmentIndex> segmentIndex(VideoVariant variant) {
+        Optional<Mp4SegmentIndex> known = indexes.get(variant.getS3Key());
+        if (known != null) {
+            return known;
+        }
+        Optional<Mp4SegmentIndex> index;
+        try {
+            byte[] head = s3Service.getProcessedObjectBytes(variant.getS3Key(), "bytes=0-" + (probeBytes - 1)).asByteArray();
+            index = Mp4SegmentIndex.parse(head);
+        } catch (Exception e) {
+            // Not remembered, so the next manifest request probes again
+            log.warn("Could not read the segment index of {}: {}", variant.getS3Key(), e.getMessage());
+            return Optional.empty();
+        }
+        if (indexes.size() >= maxEntries) {
+            indexes.clear();
+        }
+        indexes.put(variant.getS3Key(), index);
+        return index;
+    }
+
+    private boolean isSegmented(VideoVariant variant) {
+        return variant.getSegmentKeyTemplate() != null
+                && variant.getSegmentCount() != null && variant.getSegmentCount() > 0
+                && variant.getSegmentDurationSeconds() != null && variant.getSegmentDurationSeconds() > 0;
+    }
+
+    // Expands the key template of a segmented rendition, or the fragment byte ranges of an indexed one
+    private List<Segment> segments(Rendition rendition) {
+        VideoVariant variant = rendition.variant();
+        Mp4SegmentIndex index = rendition.index();
+        if (index != null) {
+            List<Segment> segments = new ArrayList<>(index.subsegments().size());
+            for (Mp4SegmentIndex.Subsegment subsegment : index.subsegments()) {
+                segments.add(new Segment(variant.getS3Key(), subsegment.duration() / (double) index.timescale(),
+                        subsegment.offset(), subsegment.size()));
+            }
+            return segments;
+        }
+        int count = variant.getSegmentCount();
+        double segmentDuration = variant.getSegmentDurationSeconds();
+        List<Segment> segments = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            double duration = segmentDuration;
+            // Last segment is usually shorter than the nominal duration
+            if (n == count - 1 && variant.getDurationSeconds() != null) {
+                duration = Math.max(0, variant.getDurationSeconds() - segmentDuration * (count - 1));
+            }
+            segments.add(new Segment(variant.getSegmentKeyTemplate().replace("{n}", Integer.toString(n)), duration, 0, 0));
+        }
+        return segments;
+    }
+
+    private long bandwidth(VideoVariant variant) {
+        if (variant.getBandwidth() != null) {
+            return variant.getBandwidth();
+        }
+        return DEFAULT_BANDWIDTH.getOrDefault(variant.getQuality(), 1_000_000L);
+    }
+
+    private String presign(String s3Key) {
+        return s3Service.generatePresignedDownloadUrl(s3Key, URL_EXPIRATION_SECONDS);
+    }
+
+    private String cached(String key, Supplier<String> builder) {
+        long now = System.currentTimeMillis();
+        CachedManifest hit = cache.get(key);
+        if (hit != null && hit.expiresAtMillis() > now) {
+            return hit.body();
+        }
+
+        String body = builder.get();
+        cache.put(key, new CachedManifest(body, now + ttlSeconds * 1000L));
+        if (cache.size() > maxEntries) {
+            cache.entrySet().removeIf(e -> e.getValue().expiresAtMillis() <= now);
+            // Still full of live entries: drop an arbitrary tenth rather than scanning for the oldest
+            if (cache.size() > maxEntries) {
+                cache.keySet().stream().limit(Math.max(1, maxEntries / 10)).toList().forEach(cache::remove);
+            }
+        }
+        return body;
+    }
+
+    private static String isoDuration(double seconds) {
+        return String.format(Locale.ROOT, "PT%.3fS", seconds);
+    }
+
+    private static String xml(String value) {
+        return value.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    // offset/length are only set for byte-range fragments of a single-file rendition
+    private record Segment(String s3Key, double durationSeconds, long offset, long length) {}
+
+    private record Rendition(VideoVariant variant, Mp4SegmentIndex index) {
+        double durationSeconds() {
+            if (variant.getDurationSeconds() != null) {
+                return variant.getDurationSeconds();
+            }
+            return index != null ? index.durationSeconds() : 0;
+        }
+    }
+
+    private record CachedManifest(String body, long expiresAtMillis) {}
+}
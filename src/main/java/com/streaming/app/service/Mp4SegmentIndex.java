@@ -0,0 +1,107 @@
+package com.streaming.app.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Byte layout of a single-file fragmented MP4 with a global segment index, read from the top-level boxes:
+ * ftyp/moov form the initialization segment and the sidx box lists every fragment's size and duration.
+ * This is what the DASH on-demand profile (SegmentBase) and HLS byte-range playlists address.
+ */
+public record Mp4SegmentIndex(long initEnd, long indexStart, long indexEnd, long timescale,
+                             List<Subsegment> subsegments) {
+
+    public record Subsegment(long offset, long size, long duration) {}
+
+    public double durationSeconds() {
+        return subsegments.stream().mapToLong(Subsegment::duration).sum() / (double) timescale;
+    }
+
+    /**
+     * Parses the start of the file. Empty when there is no moov followed by a sidx before the first
+     * moof/mdat (a progressive MP4, or fragments without a global index), when the index is hierarchical,
+     * or when the boxes run past {@code head}.
+     */
+    public static Optional<Mp4SegmentIndex> parse(byte[] head) {
+        ByteBuffer buffer = ByteBuffer.wrap(head);
+        long moovEnd = -1;
+        while (buffer.remaining() >= 8) {
+            int boxStart = buffer.position();
+            long size = Integer.toUnsignedLong(buffer.getInt());
+            String type = new String(head, boxStart + 4, 4, StandardCharsets.US_ASCII);
+            buffer.position(boxStart + 8);
+            if (size == 1) {
+                if (buffer.remaining() < 8) {
+                    return Optional.empty();
+                }
+                size = buffer.getLong();
+            }
+            if (size < 8 || size > Long.MAX_VALUE - boxStart) {
+                // Includes size 0 ("to end of file"), which only a trailing mdat uses
+                return Optional.empty();
+            }
+            long boxEnd = boxStart + size;
+
+            switch (type) {
+                case "moov" -> moovEnd = boxEnd;
+                case "sidx" -> {
+                    if (moovEnd < 0 || boxEnd > head.length) {
+                        return Optional.empty();
+                    }
+                    try {
+                        return parseSidx(buffer.limit((int) boxEnd), moovEnd, boxStart, boxEnd);
+                    } catch (BufferUnderflowException e) {
+                        return Optional.empty();
+                    }
+                }
+                case "moof", "mdat" -> {
+                    return Optional.empty();
+                }
+                default -> { }
+            }
+            if (boxEnd > head.length) {
+                return Optional.empty();
+            }
+            buffer.position((int) boxEnd);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Mp4SegmentIndex> parseSidx(ByteBuffer buffer, long moovEnd, int boxStart, long boxEnd) {
+        int version = buffer.get() & 0xff;
+        buffer.position(buffer.position() + 3 + 4);   // flags, reference_ID
+        long timescale = Integer.toUnsignedLong(buffer.getInt());
+        long firstOffset;
+        if (version == 0) {
+            buffer.getInt();                            // earliest_presentation_time
+            firstOffset = Integer.toUnsignedLong(buffer.getInt());
+        } else {
+            buffer.getLong();
+            firstOffset = buffer.getLong();
+        }
+        buffer.getShort();                              // reserved
+        int count = buffer.getShort() & 0xffff;
+        if (timescale == 0 || count == 0 || buffer.remaining() < count * 12L) {
+            return Optional.empty();
+        }
+
+        List<Subsegment> subsegments = new ArrayList<>(count);
+        long offset = boxEnd + firstOffset;
+        for (int i = 0; i < count; i++) {
+            int reference = buffer.getInt();
+            if (reference < 0) {
+                // reference_type 1 points at another sidx; nested indexes aren't supported
+                return Optional.empty();
+            }
+            long duration = Integer.toUnsignedLong(buffer.getInt());
+            buffer.getInt();                            // SAP flags
+            subsegments.add(new Subsegment(offset, reference, duration));
+            offset += reference;
+        }
+        return Optional.of(new Mp4SegmentIndex(moovEnd - 1, boxStart, boxEnd - 1, timescale, List.copyOf(subsegments)));
+    }
+}
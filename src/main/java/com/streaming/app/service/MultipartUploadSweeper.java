@@ -0,0 +1,57 @@
+package com.streaming.app.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aborts raw multipart uploads that were started but never completed, so their parts stop
+ * accruing storage, and fails the matching video rows. Complements (or replaces, where bucket
+ * policy can't be changed) an AbortIncompleteMultipartUpload lifecycle rule.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MultipartUploadSweeper {
+
+    private final S3Service s3Service;
+    private final VideoService videoService;
+
+    @Value("${aws.s3.multipart.staleAfterHours:24}")
+    private long staleAfterHours;
+
+    @Scheduled(fixedDelayString = "${aws.s3.multipart.sweepIntervalMs:3600000}",
+            initialDelayString = "${aws.s3.multipart.sweepIntervalMs:3600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(staleAfterHours));
+        List<MultipartUpload> stale;
+        try {
+            stale = s3Service.listStaleMultipartUploads(cutoff);
+        } catch (Exception e) {
+            log.warn("Listing multipart uploads failed: {}", e.getMessage());
+            return;
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        int aborted = 0;
+        for (MultipartUpload upload : stale) {
+            try {
+                s3Service.abortMultipartUpload(upload.key(), upload.uploadId());
+                aborted++;
+                s3Service.extractVideoIdFromRawKey(upload.key()).ifPresent(videoService::markAsFailed);
+            } catch (Exception e) {
+                log.warn("Abort failed for {}: {}", upload.key(), e.getMessage());
+            }
+        }
+        log.info("Aborted {} of {} multipart uploads older than {}h", aborted, stale.size(), staleAfterHours);
+    }
+}
@@ -0,0 +1,114 @@
+package com.streaming.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of already-signed GET URLs so hot download endpoints don't re-run SigV4 on every poll.
+ * An entry is only handed out while it still has at least {@code minRemainingSeconds} of validity left.
+ * Validity is the earlier of the requested expiry and the expiry of the session credentials that signed it
+ * (ECS task role / STS), since S3 rejects a presigned URL once its credentials have expired.
+ */
+@Component
+@Slf4j
+public class PresignedUrlCache {
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${aws.s3.presignCache.maxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${aws.s3.presignCache.minRemainingSeconds:900}")
+    private long minRemainingSeconds;
+
+    public String get(String bucket, String s3Key, int expirationSeconds, Supplier<SignedUrl> signer) {
+        // Not worth caching if a fresh URL would already be below the validity floor
+        if (expirationSeconds <= minRemainingSeconds) {
+            misses.incrementAndGet();
+            return signer.get().url();
+        }
+
+        Key key = new Key(bucket, s3Key, expirationSeconds);
+        long now = System.currentTimeMillis();
+
+        Entry cached = entries.get(key);
+        if (cached != null && cached.isUsable(now, minRemainingSeconds)) {
+            hits.incrementAndGet();
+            return cached.url();
+        }
+
+        // compute() keeps concurrent misses for the same key down to a single signing call
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.isUsable(now, minRemainingSeconds)) {
+                return existing;
+            }
+            misses.incrementAndGet();
+            SignedUrl signed = signer.get();
+            long expiresAt = now + expirationSeconds * 1000L;
+            if (signed.credentialsExpireAt() != null) {
+                expiresAt = Math.min(expiresAt, signed.credentialsExpireAt().toEpochMilli());
+            }
+            return new Entry(signed.url(), expiresAt);
+        });
+
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+        return entry.url();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries.size());
+    }
+
+    private void evict(long now) {
+        // Drop everything that can no longer be served, then the soonest-expiring entries until back under 90%
+        entries.forEach((key, entry) -> {
+            if (!entry.isUsable(now, minRemainingSeconds) && entries.remove(key, entry)) {
+                evictions.incrementAndGet();
+            }
+        });
+
+        int target = (int) (maxEntries * 0.9);
+        if (entries.size() <= target) {
+            return;
+        }
+
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAtMillis()))
+                .limit(Math.max(0, entries.size() - target))
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(key -> {
+                    if (entries.remove(key) != null) {
+                        evictions.incrementAndGet();
+                    }
+                });
+        log.info("Evicted down to {} entries", entries.size());
+    }
+
+    /** A freshly signed URL; {@code credentialsExpireAt} is null for long-term credentials. */
+    public record SignedUrl(String url, Instant credentialsExpireAt) {}
+
+    private record Key(String bucket, String s3Key, int expirationSeconds) {}
+
+    private record Entry(String url, long expiresAtMillis) {
+        boolean isUsable(long now, long minRemainingSeconds) {
+            return expiresAtMillis - now >= minRemainingSeconds * 1000L;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {}
+}
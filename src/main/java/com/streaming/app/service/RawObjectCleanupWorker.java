@@ -0,0 +1,119 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.RawObjectCleanup;
+import com.streaming.app.repository.RawObjectCleanupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the raw_object_cleanup outbox in the background with S3 DeleteObjects batches,
+ * so completion callbacks only pay for the DB write. A batch is leased in a short transaction
+ * (nextAttemptAt pushed out by {@code cleanup.raw.leaseMs}), deleted from S3 with no transaction
+ * or connection held, and the results are written back in a second short transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RawObjectCleanupWorker {
+
+    private final RawObjectCleanupRepository cleanupRepository;
+    private final S3Service s3Service;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cleanup.raw.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${cleanup.raw.maxAttempts:10}")
+    private int maxAttempts;
+
+    @Value("${cleanup.raw.baseBackoffMs:1000}")
+    private long baseBackoffMs;
+
+    @Value("${cleanup.raw.maxBackoffMs:3600000}")
+    private long maxBackoffMs;
+
+    // How long a claimed batch is hidden from other workers; must outlast a DeleteObjects call with retries
+    @Value("${cleanup.raw.leaseMs:300000}")
+    private long leaseMs;
+
+    @Value("${cleanup.raw.deadRetentionHours:168}")
+    private long deadRetentionHours;
+
+    @Scheduled(fixedDelayString = "${cleanup.raw.pollIntervalMs:5000}")
+    public void drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RawObjectCleanup> due = claim(now);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        log.info("Deleting {} raw objects", due.size());
+        Map<String, String> failures;
+        try {
+            failures = s3Service.deleteRawFiles(due.stream().map(RawObjectCleanup::getS3Key).toList());
+        } catch (Exception e) {
+            log.warn("DeleteObjects call failed: {}", e.getMessage());
+            failures = new HashMap<>();
+            for (RawObjectCleanup row : due) {
+                failures.put(row.getS3Key(), e.getMessage());
+            }
+        }
+
+        Map<String, String> failed = failures;
+        transactionTemplate.executeWithoutResult(status -> record(due, failed, LocalDateTime.now()));
+        log.info("Deleted {}, failed {}", due.size() - failed.size(), failed.size());
+    }
+
+    private List<RawObjectCleanup> claim(LocalDateTime now) {
+        return transactionTemplate.execute(status -> {
+            // DeleteObjects accepts at most 1000 keys per call
+            List<RawObjectCleanup> due = cleanupRepository.lockDueBatch(now, maxAttempts, Math.min(batchSize, 1000));
+            due.forEach(row -> row.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs))));
+            return due;
+        });
+    }
+
+    private void record(List<RawObjectCleanup> due, Map<String, String> failures, LocalDateTime now) {
+        List<Long> done = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (RawObjectCleanup row : due) {
+            (failures.containsKey(row.getS3Key()) ? failed : done).add(row.getId());
+        }
+        cleanupRepository.deleteAllByIdInBatch(done);
+        for (RawObjectCleanup row : cleanupRepository.findAllById(failed)) {
+            scheduleRetry(row, failures.get(row.getS3Key()), now);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cleanup.raw.purgeIntervalMs:3600000}")
+    public void purgeDead() {
+        int purged = cleanupRepository.deleteDeadBefore(maxAttempts,
+                LocalDateTime.now().minusHours(deadRetentionHours));
+        if (purged > 0) {
+            log.info("Purged {} raw cleanup rows that ran out of attempts", purged);
+        }
+    }
+
+    private void scheduleRetry(RawObjectCleanup row, String error, LocalDateTime now) {
+        int attempts = row.getAttempts() + 1;
+        long backoffMs = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts, 20));
+        row.setAttempts(attempts);
+        row.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMs)));
+        row.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            // Left in S3; the row is kept for cleanup.raw.deadRetentionHours so the key can be found and removed by hand
+            log.warn("Giving up on raw object {}: {}", row.getS3Key(), error);
+        }
+    }
+}
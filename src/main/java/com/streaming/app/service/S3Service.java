@@ -1,29 +1,80 @@
 package com.streaming.app.service;
 
+import com.streaming.app.util.ThreadFactories;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.time.Duration;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
+@Slf4j
 public class S3Service {
 
-    private S3Client s3Client;
-    private S3Presigner s3Presigner;
+    private static final String RAW_PREFIX = "raw-videos/";
+
+    // Shared, pooled clients from AwsClientConfig
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+
+    // Presigning is local CPU work (SigV4 HMACs), so one thread per core
+    private ExecutorService presignExecutor;
+
+    private final AwsCredentialsProvider awsCredentialsProvider;
+    private final PresignedUrlCache presignedUrlCache;
+    private final MeterRegistry meterRegistry;
+
+    // Non-blocking client for the multipart control calls; absent unless aws.async.enabled
+    private final S3AsyncClient s3AsyncClient;
 
     @Value("${aws.s3.rawBucket}")
     private String rawBucketName;          // renamed ✔️
@@ -31,26 +82,45 @@ public class S3Service {
     @Value("${aws.s3.processedBucket}")
     private String processedBucketName;    // new ✔️
 
-    @Value("${aws.region}")
-    private String region;
+    @Value("${aws.s3.multipart.partUrlExpirationMinutes:60}")
+    private long partUrlExpirationMinutes;
+
+    public S3Service(S3Client s3Client, S3Presigner s3Presigner, AwsCredentialsProvider awsCredentialsProvider,
+                     PresignedUrlCache presignedUrlCache, MeterRegistry meterRegistry,
+                     ObjectProvider<S3AsyncClient> s3AsyncClient) {
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.awsCredentialsProvider = awsCredentialsProvider;
+        this.presignedUrlCache = presignedUrlCache;
+        this.meterRegistry = meterRegistry;
+        this.s3AsyncClient = s3AsyncClient.getIfAvailable();
+    }
 
     @PostConstruct
     public void init() {
-        this.s3Client = S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-
-        this.s3Presigner = S3Presigner.builder()
-                .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+        this.presignExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), ThreadFactories.named("s3-presign", false));
     }
 
     // Generate presigned URL for RAW uploads
     public String generatePresignedUrl(String s3Key, String contentType) {
+        log.debug("generatePresignedUrl - s3Key: {}, contentType: {}", s3Key, contentType);
+        return signUploadUrl(s3Key, contentType);
+    }
 
-        System.out.println("[S3Service] generatePresignedUrl - s3Key: " + s3Key + ", contentType: " + contentType);
+    // Presigned RAW upload URLs for many keys at once (s3Key → contentType), signed in parallel
+    public Map<String, String> generatePresignedUrls(Map<String, String> contentTypeByKey) {
+        log.debug("generatePresignedUrls - {} keys", contentTypeByKey.size());
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        contentTypeByKey.forEach((s3Key, contentType) -> futures.put(s3Key,
+                CompletableFuture.supplyAsync(() -> signUploadUrl(s3Key, contentType), presignExecutor)));
+
+        Map<String, String> urls = new LinkedHashMap<>();
+        futures.forEach((s3Key, future) -> urls.put(s3Key, future.join()));
+        return urls;
+    }
+
+    private String signUploadUrl(String s3Key, String contentType) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(rawBucketName)        // uses RAW bucket ✔️
                 .key(s3Key)
@@ -63,34 +133,204 @@ public class S3Service {
                 .build();
 
         PresignedPutObjectRequest presignedRequest =
-                s3Presigner.presignPutObject(presignRequest);
+                timer("s3.presign", "upload").record(() -> s3Presigner.presignPutObject(presignRequest));
+        return presignedRequest.url().toString();
+    }
+
+    // Start a multipart upload in the RAW bucket; returns the uploadId the client uploads parts against
+    public String createMultipartUpload(String s3Key, String contentType) {
+        log.info("createMultipartUpload - s3Key: {}, contentType: {}", s3Key, contentType);
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(rawBucketName)
+                .key(s3Key)
+                .contentType(contentType)
+                .build();
+        String uploadId = s3Client.createMultipartUpload(request).uploadId();
+        log.info("Multipart upload created for {}", s3Key);
+        return uploadId;
+    }
+
+    // One presigned UploadPart URL per requested part number, so the client can PUT parts in parallel
+    public Map<Integer, String> generatePresignedPartUrls(String s3Key, String uploadId, List<Integer> partNumbers) {
+        log.debug("generatePresignedPartUrls - s3Key: {}, parts: {}", s3Key, partNumbers.size());
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (Integer partNumber : partNumbers) {
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                    .bucket(rawBucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build();
+
+            UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                    .signatureDuration(Duration.ofMinutes(partUrlExpirationMinutes))
+                    .uploadPartRequest(uploadPartRequest)
+                    .build();
+
+            urls.put(partNumber, timer("s3.presign", "part")
+                    .record(() -> s3Presigner.presignUploadPart(presignRequest)).url().toString());
+        }
+        return urls;
+    }
+
+    // Parts S3 already has for this upload, in part order; lets an interrupted client resume
+    public List<Part> listUploadedParts(String s3Key, String uploadId) {
+        log.debug("listUploadedParts - s3Key: {}", s3Key);
+        ListPartsRequest request = ListPartsRequest.builder()
+                .bucket(rawBucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .build();
+        List<Part> parts = new ArrayList<>();
+        s3Client.listPartsPaginator(request).parts().forEach(parts::add);
+        return parts;
+    }
+
+    // Stitch the parts into the final object; without an explicit part list, every uploaded part is used
+    public void completeMultipartUpload(String s3Key, String uploadId, List<CompletedPart> parts) {
+        if (parts == null || parts.isEmpty()) {
+            parts = toCompletedParts(listUploadedParts(s3Key, uploadId));
+        }
+        s3Client.completeMultipartUpload(completeRequest(s3Key, uploadId, parts));
+        log.info("Multipart upload completed: {}", s3Key);
+    }
+
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        log.info("abortMultipartUpload - s3Key: {}", s3Key);
+        s3Client.abortMultipartUpload(abortRequest(s3Key, uploadId));
+    }
+
+    /*
+     * Non-blocking variants of the multipart control calls. With aws.async.enabled they run on the shared
+     * Netty client and no request thread waits on S3; otherwise they complete with the blocking call's result.
+     * Failures surface as the S3Exception (possibly wrapped in a CompletionException).
+     */
+
+    public CompletableFuture<List<Part>> listUploadedPartsAsync(String s3Key, String uploadId) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.supplyAsync(() -> listUploadedParts(s3Key, uploadId), Runnable::run);
+        }
+        List<Part> parts = new ArrayList<>();
+        return s3AsyncClient.listPartsPaginator(ListPartsRequest.builder()
+                        .bucket(rawBucketName)
+                        .key(s3Key)
+                        .uploadId(uploadId)
+                        .build())
+                .parts()
+                .subscribe(parts::add)
+                .thenApply(done -> parts);
+    }
+
+    public CompletableFuture<Void> completeMultipartUploadAsync(String s3Key, String uploadId, List<CompletedPart> parts) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.runAsync(() -> completeMultipartUpload(s3Key, uploadId, parts), Runnable::run);
+        }
+        CompletableFuture<List<CompletedPart>> resolved = parts == null || parts.isEmpty()
+                ? listUploadedPartsAsync(s3Key, uploadId).thenApply(S3Service::toCompletedParts)
+                : CompletableFuture.completedFuture(parts);
+        return resolved
+                .thenCompose(list -> s3AsyncClient.completeMultipartUpload(completeRequest(s3Key, uploadId, list)))
+                .thenAccept(response -> log.info("Multipart upload completed: {}", s3Key));
+    }
+
+    public CompletableFuture<Void> abortMultipartUploadAsync(String s3Key, String uploadId) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.runAsync(() -> abortMultipartUpload(s3Key, uploadId), Runnable::run);
+        }
+        log.info("abortMultipartUpload - s3Key: {}", s3Key);
+        return s3AsyncClient.abortMultipartUpload(abortRequest(s3Key, uploadId)).thenAccept(response -> {});
+    }
+
+    private static List<CompletedPart> toCompletedParts(List<Part> uploaded) {
+        return uploaded.stream()
+                .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                .toList();
+    }
+
+    private CompleteMultipartUploadRequest completeRequest(String s3Key, String uploadId, List<CompletedPart> parts) {
+        List<CompletedPart> ordered = parts.stream()
+                .sorted(Comparator.comparing(CompletedPart::partNumber))
+                .toList();
+        log.info("completeMultipartUpload - s3Key: {}, parts: {}", s3Key, ordered.size());
+        return CompleteMultipartUploadRequest.builder()
+                .bucket(rawBucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(ordered).build())
+                .build();
+    }
 
-        String url = presignedRequest.url().toString();
-        System.out.println("[S3Service] Presigned URL generated: " + url);
-        return url;
+    private AbortMultipartUploadRequest abortRequest(String s3Key, String uploadId) {
+        return AbortMultipartUploadRequest.builder()
+                .bucket(rawBucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .build();
     }
 
+    // Incomplete multipart uploads under the raw prefix that were started before {@code cutoff}
+    public List<MultipartUpload> listStaleMultipartUploads(Instant cutoff) {
+        ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder()
+                .bucket(rawBucketName)
+                .prefix(RAW_PREFIX)
+                .build();
+        List<MultipartUpload> stale = new ArrayList<>();
+        s3Client.listMultipartUploadsPaginator(request).uploads().forEach(upload -> {
+            if (upload.initiated() != null && upload.initiated().isBefore(cutoff)) {
+                stale.add(upload);
+            }
+        });
+        return stale;
+    }
 
-    // Generate RAW bucket key
-    public String generateRawVideoKey(String fileName) {
-        String key = "raw-videos/" + UUID.randomUUID() + "-" + fileName;
-        System.out.println("[S3Service] generateRawVideoKey - fileName: " + fileName + ", key: " + key);
+    // Generate RAW bucket key: "raw-videos/{videoId}/{fileName}" so upload events carry the video id
+    public String generateRawVideoKey(Long videoId, String fileName) {
+        String key = RAW_PREFIX + videoId + "/" + fileName;
+        log.debug("generateRawVideoKey - fileName: {}, key: {}", fileName, key);
         return key;
     }
 
+    // Inverse of generateRawVideoKey; empty for keys that don't follow that layout (e.g. legacy UUID keys)
+    public Optional<Long> extractVideoIdFromRawKey(String s3Key) {
+        if (s3Key == null || !s3Key.startsWith(RAW_PREFIX)) {
+            return Optional.empty();
+        }
+        int end = s3Key.indexOf('/', RAW_PREFIX.length());
+        if (end <= RAW_PREFIX.length()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(s3Key.substring(RAW_PREFIX.length(), end)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
     // Generate PROCESSED bucket key (for backend usage if needed)
     public String generateProcessedKey(Long videoId, String quality) {
         return "processed-videos/" + videoId + "/" + quality + ".mp4";
     }
 
     public String generatePresignedDownloadUrl(String s3Key, int expirationSeconds) {
-        System.out.println("[S3Service] generatePresignedDownloadUrl - s3Key: " + s3Key +
-                ", expiration: " + expirationSeconds + "s");
+        // Called once per segment while building manifests: guard so the int isn't boxed when debug is off
+        if (log.isDebugEnabled()) {
+            log.debug("generatePresignedDownloadUrl - s3Key: {}, expiration: {}s", s3Key, expirationSeconds);
+        }
+
+        // Reuse a previously signed URL while it still has enough validity left
+        return presignedUrlCache.get(processedBucketName, s3Key, expirationSeconds,
+                () -> signDownloadUrl(s3Key, expirationSeconds));
+    }
 
+    private PresignedUrlCache.SignedUrl signDownloadUrl(String s3Key, int expirationSeconds) {
+        // Sign with exactly these credentials, so their expiry is the one the cached URL is capped at.
+        // The provider caches them, so this doesn't add a call to the credentials endpoint.
+        AwsCredentials credentials = awsCredentialsProvider.resolveCredentials();
         GetObjectRequest getObjectRequest =
                 GetObjectRequest.builder()
                         .bucket(processedBucketName)  // Use processed bucket
                         .key(s3Key)
+                        .overrideConfiguration(o -> o.credentialsProvider(StaticCredentialsProvider.create(credentials)))
                         .build();
 
         GetObjectPresignRequest presignRequest =
@@ -100,39 +340,93 @@ public class S3Service {
                         .build();
 
         PresignedGetObjectRequest presignedRequest =
-                s3Presigner.presignGetObject(presignRequest);
+                timer("s3.presign", "download").record(() -> s3Presigner.presignGetObject(presignRequest));
+
+        // The URL itself carries a signature, so it is never logged
+        return new PresignedUrlCache.SignedUrl(presignedRequest.url().toString(),
+                credentials.expirationTime().orElse(null));
+    }
 
-        String url = presignedRequest.url().toString();
-        System.out.println("[S3Service] Presigned download URL generated: " + url);
-        return url;
+
+    // Ranged, optionally conditional GET from the processed bucket; the caller must close (or abort) the stream
+    public ResponseInputStream<GetObjectResponse> getProcessedObject(String s3Key, String range, String ifMatch) {
+        log.debug("getProcessedObject - s3Key: {}, range: {}", s3Key, range);
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(processedBucketName)
+                .key(s3Key)
+                .range(range)
+                .ifMatch(ifMatch)
+                .build();
+        return s3Client.getObject(request);
+    }
+
+    // Small ranged GET buffered fully in memory
+    public ResponseBytes<GetObjectResponse> getProcessedObjectBytes(String s3Key, String range) {
+        log.debug("getProcessedObjectBytes - s3Key: {}, range: {}", s3Key, range);
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(processedBucketName)
+                .key(s3Key)
+                .range(range)
+                .build();
+        return s3Client.getObjectAsBytes(request);
     }
 
+    // Metadata only (size, ETag, Last-Modified) of a processed object
+    public HeadObjectResponse headProcessedObject(String s3Key) {
+        log.debug("headProcessedObject - s3Key: {}", s3Key);
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(processedBucketName)
+                .key(s3Key)
+                .build();
+        return s3Client.headObject(request);
+    }
 
     // Delete from processed bucket
     public void deleteFile(String s3Key) {
-        System.out.println("[S3Service] deleteFile - s3Key: " + s3Key + ", bucket: " + processedBucketName);
+        log.debug("deleteFile - s3Key: {}, bucket: {}", s3Key, processedBucketName);
         DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
                 .bucket(processedBucketName)
                 .key(s3Key)
                 .build();
-        s3Client.deleteObject(deleteRequest);
-        System.out.println("[S3Service] File deleted successfully: " + s3Key);
+        timer("s3.delete", "processed").record(() -> s3Client.deleteObject(deleteRequest));
+        log.info("File deleted successfully: {}", s3Key);
     }
 
     // Delete from raw bucket (used to clean up after processing)
     public void deleteRawFile(String s3Key) {
-        System.out.println("[S3Service] deleteRawFile - s3Key: " + s3Key + ", bucket: " + rawBucketName);
+        log.debug("deleteRawFile - s3Key: {}, bucket: {}", s3Key, rawBucketName);
         DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
                 .bucket(rawBucketName)
                 .key(s3Key)
                 .build();
-        s3Client.deleteObject(deleteRequest);
-        System.out.println("[S3Service] Raw file deleted successfully: " + s3Key);
+        timer("s3.delete", "raw").record(() -> s3Client.deleteObject(deleteRequest));
+        log.info("Raw file deleted successfully: {}", s3Key);
+    }
+
+    // Batch delete from raw bucket (max 1000 keys); returns the keys S3 could not delete with their error
+    public Map<String, String> deleteRawFiles(List<String> s3Keys) {
+        log.debug("deleteRawFiles - {} keys, bucket: {}", s3Keys.size(), rawBucketName);
+        DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
+                .bucket(rawBucketName)
+                .delete(Delete.builder()
+                        .objects(s3Keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                        .quiet(true)   // only report failures
+                        .build())
+                .build();
+
+        DeleteObjectsResponse response = timer("s3.delete", "raw-batch").record(() -> s3Client.deleteObjects(deleteRequest));
+        Map<String, String> failures = new HashMap<>();
+        response.errors().forEach(error -> failures.put(error.key(), error.code() + ": " + error.message()));
+        log.info("Raw files deleted: {}, failed: {}", s3Keys.size() - failures.size(), failures.size());
+        return failures;
+    }
+
+    private Timer timer(String name, String operation) {
+        return meterRegistry.timer(name, "operation", operation);
     }
 
     @PreDestroy
     public void cleanup() {
-        if (s3Client != null) s3Client.close();
-        if (s3Presigner != null) s3Presigner.close();
+        if (presignExecutor != null) presignExecutor.shutdownNow();
     }
 }
\ No newline at end of file
@@ -1,32 +1,461 @@
 package com.streaming.app.service;
 
+import jakarta.annotation.PostConstruct;
+import com.streaming.app.model.TranscodeTier;
+import com.streaming.app.util.CorrelationIds;
+import com.streaming.app.util.ThreadFactories;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers outgoing transcode jobs and ships them with SendMessageBatch (max 10 entries per call).
+ * Callers get a future that completes with the SQS message id once the entry has been accepted.
+ * Each {@link TranscodeTier} has its own buffer and queue; when send capacity is contended the
+ * dispatcher picks tiers by smooth weighted round-robin, so a bulk backlog can't starve interactive jobs.
+ */
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class SqsMessageProducer {
 
+    private static final int MAX_BATCH_SIZE = 10;
+
     private final SqsClient sqsClient;
+    private final MeterRegistry meterRegistry;
+
+    // Only present when aws.async.enabled. Injected (not looked up) so Spring records the dependency and
+    // keeps the client open until shutdown() has flushed
+    @Autowired(required = false)
+    private SqsAsyncClient sqsAsyncClient;
+
+    // Every tier defaults to the single video queue, so one-queue deployments keep working unchanged
+    @Value("${aws.sqs.queues.interactive:${aws.sqs.videoQueueUrl}}")
+    private String interactiveQueueUrl;
+
+    @Value("${aws.sqs.queues.standard:${aws.sqs.videoQueueUrl}}")
+    private String standardQueueUrl;
+
+    @Value("${aws.sqs.queues.bulk:${aws.sqs.videoQueueUrl}}")
+    private String bulkQueueUrl;
+
+    @Value("${aws.sqs.queues.weight.interactive:6}")
+    private int interactiveWeight;
+
+    @Value("${aws.sqs.queues.weight.standard:3}")
+    private int standardWeight;
+
+    @Value("${aws.sqs.queues.weight.bulk:1}")
+    private int bulkWeight;
+
+    @Value("${aws.sqs.batch.lingerMs:20}")
+    private long lingerMs;
+
+    @Value("${aws.sqs.batch.maxInFlight:4}")
+    private int maxInFlight;
+
+    @Value("${aws.sqs.batch.maxAttempts:3}")
+    private int maxAttempts;
+
+    @Value("${aws.sqs.batch.queueCapacity:10000}")
+    private int queueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<TranscodeTier, TierBuffer> buffers = new EnumMap<>(TranscodeTier.class);
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition messageAvailable = signalLock.newCondition();
+    private final Set<CompletableFuture<Void>> asyncBatches = ConcurrentHashMap.newKeySet();
+    private Semaphore inFlight;
+    private ExecutorService senders;
+    private ScheduledExecutorService retryScheduler;
+    private Thread dispatcher;
+    private volatile boolean running;
 
-    @Value("${aws.sqs.videoQueueUrl}")
-    private String queueUrl;
+    @PostConstruct
+    public void start() {
+        addBuffer(TranscodeTier.INTERACTIVE, interactiveQueueUrl, interactiveWeight);
+        addBuffer(TranscodeTier.STANDARD, standardQueueUrl, standardWeight);
+        addBuffer(TranscodeTier.BULK, bulkQueueUrl, bulkWeight);
+        this.inFlight = new Semaphore(maxInFlight);
+        // In-flight batches are bounded by the semaphore either way, so virtual senders can be per-task
+        this.senders = ThreadFactories.blockingExecutor("sqs-batch-sender", maxInFlight, virtualThreads);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactories.named("sqs-batch-retry", false));
+        this.running = true;
+        this.dispatcher = ThreadFactories.named("sqs-batch-dispatcher", virtualThreads).newThread(this::dispatchLoop);
+        this.dispatcher.start();
+    }
+
+    private void addBuffer(TranscodeTier tier, String queueUrl, int weight) {
+        TierBuffer buffer = new TierBuffer(tier, queueUrl, weight, queueCapacity);
+        buffers.put(tier, buffer);
+        Gauge.builder("sqs.buffered", buffer.pending(), BlockingQueue::size)
+                .description("Transcode jobs waiting for a SendMessageBatch slot")
+                .tag("tier", tier.name())
+                .register(meterRegistry);
+    }
 
-    public void sendVideoForProcessing(Long videoId, String s3Key) {
-        System.out.println("[SqsMessageProducer] sendVideoForProcessing - videoId: " + videoId + ", s3Key: " + s3Key);
+    public CompletableFuture<String> sendVideoForProcessing(Long videoId, String s3Key, TranscodeTier tier,
+                                                            String correlationId) {
+        if (log.isDebugEnabled()) {
+            log.debug("sendVideoForProcessing - videoId: {}, s3Key: {}, tier: {}", videoId, s3Key, tier);
+        }
         String messageBody = String.format("{\"videoId\": %d, \"s3Key\": \"%s\"}", videoId, s3Key);
 
-        SendMessageRequest request = SendMessageRequest.builder()
+        TierBuffer buffer = buffers.get(tier != null ? tier : TranscodeTier.STANDARD);
+        PendingMessage message = new PendingMessage(messageBody, attributes(correlationId), buffer, new CompletableFuture<>());
+        if (!running || !offer(message)) {
+            // Buffer is full (or we're shutting down): fall back to a direct send on the caller's thread
+            log.info("Batch buffer unavailable, sending directly");
+            sendDirect(message);
+        }
+        return message.result();
+    }
+
+    private boolean offer(PendingMessage message) {
+        if (!message.buffer().pending().offer(message)) {
+            return false;
+        }
+        signalLock.lock();
+        try {
+            messageAvailable.signal();
+        } finally {
+            signalLock.unlock();
+        }
+        return true;
+    }
+
+    private void sendDirect(PendingMessage message) {
+        try {
+            SendMessageRequest request = SendMessageRequest.builder()
+                    .queueUrl(message.buffer().queueUrl())
+                    .messageBody(message.body())
+                    .messageAttributes(message.attributes())
+                    .build();
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                String messageId = sqsClient.sendMessage(request).messageId();
+                outcome = "ok";
+                log.debug("SQS message {} sent", messageId);
+                message.result().complete(messageId);
+            } finally {
+                sample.stop(sendTimer("direct", message.buffer().tier(), outcome));
+            }
+        } catch (Exception e) {
+            message.result().completeExceptionally(e);
+        }
+        countMessages(message.buffer().tier(), message.result().isCompletedExceptionally() ? "failed" : "ok", 1);
+    }
+
+    private void dispatchLoop() {
+        while (running || hasPending()) {
+            try {
+                // Take a send slot first, so the tier choice below reflects who is waiting right now
+                inFlight.acquire();
+                TierBuffer buffer = nextBuffer();
+                if (buffer == null) {
+                    inFlight.release();
+                    continue;
+                }
+                PendingMessage first = buffer.pending().poll();
+                if (first == null) {
+                    inFlight.release();
+                    continue;
+                }
+
+                // Linger briefly so bursts fill the batch instead of going out one by one
+                List<PendingMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long remaining = running ? deadline - System.nanoTime() : 0;
+                    PendingMessage next = remaining > 0
+                            ? buffer.pending().poll(remaining, TimeUnit.NANOSECONDS)
+                            : buffer.pending().poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                if (sqsAsyncClient != null) {
+                    // Non-blocking: no sender thread is held, the slot is released when SQS answers
+                    CompletableFuture<Void> sent = sendBatchAsync(buffer.queueUrl(), batch);
+                    asyncBatches.add(sent);
+                    sent.whenComplete((ignored, e) -> {
+                        asyncBatches.remove(sent);
+                        inFlight.release();
+                    });
+                } else {
+                    senders.execute(() -> {
+                        try {
+                            sendBatch(buffer.queueUrl(), batch);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Smooth weighted round-robin over the non-empty tiers; waits up to 100ms for work, null if there is none
+    private TierBuffer nextBuffer() throws InterruptedException {
+        signalLock.lock();
+        try {
+            if (!hasPending()) {
+                messageAvailable.await(100, TimeUnit.MILLISECONDS);
+            }
+            TierBuffer best = null;
+            int totalWeight = 0;
+            for (TierBuffer buffer : buffers.values()) {
+                if (buffer.pending().isEmpty()) {
+                    continue;
+                }
+                buffer.currentWeight += buffer.weight();
+                totalWeight += buffer.weight();
+                if (best == null || buffer.currentWeight > best.currentWeight) {
+                    best = buffer;
+                }
+            }
+            if (best != null) {
+                best.currentWeight -= totalWeight;
+            }
+            return best;
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
+    private boolean hasPending() {
+        for (TierBuffer buffer : buffers.values()) {
+            if (!buffer.pending().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendBatch(String queueUrl, List<PendingMessage> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            onBatchSent(batch, sample, sqsClient.sendMessageBatch(batchRequest(queueUrl, batch)));
+        } catch (Exception e) {
+            onBatchFailed(batch, sample, e);
+        }
+    }
+
+    private CompletableFuture<Void> sendBatchAsync(String queueUrl, List<PendingMessage> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendMessageBatchResponse> call;
+        try {
+            call = sqsAsyncClient.sendMessageBatch(batchRequest(queueUrl, batch));
+        } catch (Throwable e) {
+            // A synchronous throw still goes through the handler below, so the batch is retried and the slot freed
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, error) -> {
+            if (error != null) {
+                onBatchFailed(batch, sample, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                onBatchSent(batch, sample, response);
+            }
+            return null;
+        });
+    }
+
+    private static SendMessageBatchRequest batchRequest(String queueUrl, List<PendingMessage> batch) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .messageBody(batch.get(i).body())
+                    .messageAttributes(batch.get(i).attributes())
+                    .build());
+        }
+        return SendMessageBatchRequest.builder()
                 .queueUrl(queueUrl)
-                .messageBody(messageBody)
+                .entries(entries)
                 .build();
+    }
+
+    private void onBatchFailed(List<PendingMessage> batch, Timer.Sample sample, Throwable e) {
+        sample.stop(sendTimer("batch", batch.get(0).buffer().tier(), "error"));
+        log.warn("SendMessageBatch failed for {} messages: {}", batch.size(), e.getMessage());
+        batch.forEach(message -> retryOrFail(message, e));
+    }
+
+    private void onBatchSent(List<PendingMessage> batch, Timer.Sample sample, SendMessageBatchResponse response) {
+        TranscodeTier tier = batch.get(0).buffer().tier();
+        sample.stop(sendTimer("batch", tier, response.failed().isEmpty() ? "ok" : "partial"));
+
+        for (SendMessageBatchResultEntry ok : response.successful()) {
+            batch.get(Integer.parseInt(ok.id())).result().complete(ok.messageId());
+        }
+        for (BatchResultErrorEntry failed : response.failed()) {
+            PendingMessage message = batch.get(Integer.parseInt(failed.id()));
+            RuntimeException cause = new IllegalStateException(
+                    "SQS rejected message (" + failed.code() + "): " + failed.message());
+            if (Boolean.TRUE.equals(failed.senderFault())) {
+                // Sender faults (bad body, too large, ...) will never succeed on retry
+                countMessages(tier, "failed", 1);
+                message.result().completeExceptionally(cause);
+            } else {
+                retryOrFail(message, cause);
+            }
+        }
+        countMessages(tier, "ok", response.successful().size());
+        log.debug("SQS batch sent - ok: {}, failed: {}", response.successful().size(), response.failed().size());
+    }
+
+    private Timer sendTimer(String mode, TranscodeTier tier, String outcome) {
+        return meterRegistry.timer("sqs.send", "mode", mode, "tier", tier.name(), "outcome", outcome);
+    }
+
+    private void countMessages(TranscodeTier tier, String outcome, int count) {
+        if (count > 0) {
+            meterRegistry.counter("sqs.messages", "tier", tier.name(), "outcome", outcome).increment(count);
+        }
+    }
+
+    private void retryOrFail(PendingMessage message, Throwable cause) {
+        int attempt = message.attempts().incrementAndGet();
+        if (attempt >= maxAttempts) {
+            countMessages(message.buffer().tier(), "failed", 1);
+            message.result().completeExceptionally(cause);
+            return;
+        }
+        countMessages(message.buffer().tier(), "retried", 1);
+
+        if (!running) {
+            sendDirect(message);
+            return;
+        }
+
+        long backoffMs = 50L << (attempt - 1);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!running || !offer(message)) {
+                    sendDirect(message);
+                }
+            }, backoffMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutdown began after the running check above
+            sendDirect(message);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        int buffered = buffers.values().stream().mapToInt(buffer -> buffer.pending().size()).sum();
+        log.info("Flushing {} buffered messages", buffered);
+        running = false;
+        dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+        // Retries still waiting out their backoff get sent directly rather than dropped
+        retryScheduler.shutdownNow().forEach(Runnable::run);
+        retryScheduler.awaitTermination(10, TimeUnit.SECONDS);
+        senders.shutdown();
+        senders.awaitTermination(10, TimeUnit.SECONDS);
+        // Async batches hold no sender thread, so wait on their futures before the client is closed
+        try {
+            CompletableFuture.allOf(asyncBatches.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("{} async SQS batches still in flight at shutdown", asyncBatches.size());
+        } catch (ExecutionException e) {
+            // Failures were already handled per message
+        }
+        // A retry that passed its running check just before shutdown can land in a buffer after the dispatcher
+        // has exited; nothing would ever complete its future, so send what is left directly
+        List<PendingMessage> leftover = new ArrayList<>();
+        buffers.values().forEach(buffer -> buffer.pending().drainTo(leftover));
+        if (!leftover.isEmpty()) {
+            log.info("Sending {} messages left in the buffers directly", leftover.size());
+            leftover.forEach(this::sendDirect);
+        }
+    }
+
+    // The transcoder echoes the correlation id back on its callbacks (X-Correlation-Id)
+    private static Map<String, MessageAttributeValue> attributes(String correlationId) {
+        if (correlationId == null) {
+            return Map.of();
+        }
+        return Map.of(CorrelationIds.MESSAGE_ATTRIBUTE, MessageAttributeValue.builder()
+                .dataType("String")
+                .stringValue(correlationId)
+                .build());
+    }
+
+    private record PendingMessage(String body, Map<String, MessageAttributeValue> attributes, TierBuffer buffer,
+                                  CompletableFuture<String> result, AtomicInteger attempts) {
+        PendingMessage(String body, Map<String, MessageAttributeValue> attributes, TierBuffer buffer,
+                       CompletableFuture<String> result) {
+            this(body, attributes, buffer, result, new AtomicInteger());
+        }
+    }
+
+    // Per-tier buffer; currentWeight is only touched by the dispatcher under signalLock
+    private static final class TierBuffer {
+        private final TranscodeTier tier;
+        private final String queueUrl;
+        private final int weight;
+        private final BlockingQueue<PendingMessage> pending;
+        private int currentWeight;
+
+        TierBuffer(TranscodeTier tier, String queueUrl, int weight, int capacity) {
+            this.tier = tier;
+            this.queueUrl = queueUrl;
+            this.weight = Math.max(1, weight);
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
 
-        sqsClient.sendMessage(request);
-        System.out.println("[SqsMessageProducer] SQS message sent → " + messageBody);
+        TranscodeTier tier() { return tier; }
+        String queueUrl() { return queueUrl; }
+        int weight() { return weight; }
+        BlockingQueue<PendingMessage> pending() { return pending; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Finds videos that have sat in QUEUED or PROCESSING past their deadline (lost message, dead ECS task)
+ * and requeues them with exponential backoff, up to {@code reaper.maxRetries}; after that they are FAILED.
+ * <p>
+ * statusUpdatedAt is stamped by the database, so deadlines are computed from the database clock too.
+ * The PROCESSING deadline runs from the last heartbeat: the transcoder repeats the /processing callback while it
+ * works, so {@code reaper.processingTimeoutMinutes} only has to cover the gap between two of them.
+ * A QUEUED video is only considered lost once its message was published to SQS longer ago than the
+ * (deliberately long) QUEUED deadline; before that a backlogged queue is indistinguishable from a lost message.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StuckVideoReaper {
+
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final VideoRepository videoRepository;
+    private final VideoService videoService;
+
+    @Value("${reaper.queuedTimeoutMinutes:360}")
+    private long queuedTimeoutMinutes;
+
+    @Value("${reaper.processingTimeoutMinutes:60}")
+    private long processingTimeoutMinutes;
+
+    @Value("${reaper.maxRetries:3}")
+    private int maxRetries;
+
+    @Value("${reaper.baseBackoffSeconds:60}")
+    private long baseBackoffSeconds;
+
+    @Value("${reaper.maxBackoffSeconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${reaper.batchSize:100}")
+    private int batchSize;
+
+    private volatile boolean backfilled;
+
+    @Scheduled(fixedDelayString = "${reaper.pollIntervalMs:60000}", initialDelayString = "${reaper.pollIntervalMs:60000}")
+    public void reap() {
+        if (!backfilled) {
+            int uploaded = videoRepository.backfillUploadedAt();
+            if (uploaded > 0) {
+                log.info("Backfilled uploadedAt on {} videos", uploaded);
+            }
+            int rows = videoRepository.backfillStatusUpdatedAt();
+            if (rows > 0) {
+                log.info("Backfilled statusUpdatedAt on {} videos", rows);
+            }
+            backfilled = true;
+        }
+        reap(VideoStatus.QUEUED, Duration.ofMinutes(queuedTimeoutMinutes));
+        reap(VideoStatus.PROCESSING, Duration.ofMinutes(processingTimeoutMinutes));
+    }
+
+    private void reap(VideoStatus status, Duration deadline) {
+        LocalDateTime now = videoRepository.databaseNow();
+        LocalDateTime cutoff = now.minus(deadline);
+        // Outbox publishedAt comes from the app clock, so its cutoff does as well
+        LocalDateTime publishedCutoff = LocalDateTime.now().minus(deadline);
+        LocalDateTime afterUpdatedAt = SCAN_START;
+        Long afterId = 0L;
+        int requeued = 0;
+        int failed = 0;
+
+        while (true) {
+            List<VideoRepository.StuckVideo> page = status == VideoStatus.QUEUED
+                    ? videoRepository.findStuckQueued(cutoff, publishedCutoff, afterUpdatedAt, afterId, Limit.of(batchSize))
+                    : videoRepository.findStuck(status, cutoff, afterUpdatedAt, afterId, Limit.of(batchSize));
+            for (VideoRepository.StuckVideo stuck : page) {
+                int retries = stuck.getRetryCount() != null ? stuck.getRetryCount() : 0;
+                if (retries >= maxRetries) {
+                    if (videoService.transition(stuck.getId(), EnumSet.of(status), VideoStatus.FAILED)) {
+                        failed++;
+                    }
+                } else if (videoService.requeueStuck(stuck, status, now, Duration.ofSeconds(backoffSeconds(retries)))) {
+                    requeued++;
+                }
+            }
+            if (page.size() < batchSize) {
+                break;
+            }
+            VideoRepository.StuckVideo last = page.get(page.size() - 1);
+            afterUpdatedAt = last.getStatusUpdatedAt();
+            afterId = last.getId();
+        }
+
+        if (requeued > 0 || failed > 0) {
+            log.info("{} past {}m: requeued {}, failed {}", status, deadline.toMinutes(), requeued, failed);
+        }
+    }
+
+    private long backoffSeconds(int retries) {
+        return Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(retries, 20));
+    }
+}
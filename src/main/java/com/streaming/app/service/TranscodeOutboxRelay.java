@@ -0,0 +1,193 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeOutbox;
+import com.streaming.app.repository.TranscodeOutboxRepository;
+import com.streaming.app.util.CorrelationIds;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes pending transcode_outbox rows through {@link SqsMessageProducer} and records the SQS ack.
+ * Each run claims a batch in a short transaction by pushing nextAttemptAt out by a lease, publishes with no
+ * transaction or connection held, and writes the outcomes back in a second short transaction. A send that
+ * hasn't been acked by the publish timeout keeps its lease and is recorded by a later run once it completes,
+ * rather than being sent again. Delivery is still at-least-once: a crash after SQS accepted a message but
+ * before the ack commits re-sends it once the lease runs out, which the PROCESSING transition tolerates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TranscodeOutboxRelay {
+
+    private final TranscodeOutboxRepository outboxRepository;
+    private final SqsMessageProducer sqsMessageProducer;
+    private final VideoService videoService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sends that outlived the publish timeout, by outbox row id; their outcome is recorded by a later run
+    private final Map<Long, CompletableFuture<String>> pendingAcks = new ConcurrentHashMap<>();
+
+    @Value("${outbox.transcode.batchSize:100}")
+    private int batchSize;
+
+    @Value("${outbox.transcode.maxAttempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.transcode.baseBackoffMs:1000}")
+    private long baseBackoffMs;
+
+    @Value("${outbox.transcode.maxBackoffMs:300000}")
+    private long maxBackoffMs;
+
+    @Value("${outbox.transcode.publishTimeoutMs:10000}")
+    private long publishTimeoutMs;
+
+    // How long a claimed row is hidden from other relays; must comfortably exceed publishTimeoutMs
+    @Value("${outbox.transcode.leaseMs:120000}")
+    private long leaseMs;
+
+    @Value("${outbox.transcode.retentionHours:24}")
+    private long retentionHours;
+
+    @Value("${outbox.transcode.deadRetentionHours:168}")
+    private long deadRetentionHours;
+
+    @Scheduled(fixedDelayString = "${outbox.transcode.pollIntervalMs:500}")
+    public void relay() {
+        Map<Long, Outcome> outcomes = new HashMap<>();
+        collectLateAcks(outcomes);
+
+        List<TranscodeOutbox> due = claim(LocalDateTime.now());
+        if (!due.isEmpty()) {
+            publish(due, outcomes);
+        }
+        if (!outcomes.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> record(outcomes));
+        }
+    }
+
+    // Locks due rows just long enough to push their nextAttemptAt out by the lease
+    private List<TranscodeOutbox> claim(LocalDateTime now) {
+        List<TranscodeOutbox> claimed = transactionTemplate.execute(status -> {
+            List<TranscodeOutbox> due = outboxRepository.lockDueBatch(now, maxAttempts, batchSize);
+            due.forEach(row -> row.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs))));
+            return due;
+        });
+        // A row still waiting on a late ack stays leased but isn't sent twice from this node
+        return claimed.stream().filter(row -> !pendingAcks.containsKey(row.getId())).toList();
+    }
+
+    private void publish(List<TranscodeOutbox> due, Map<Long, Outcome> outcomes) {
+        // Hand the whole batch to the producer first so it can pack SendMessageBatch calls, then collect acks
+        List<CompletableFuture<String>> sends = new ArrayList<>(due.size());
+        for (TranscodeOutbox row : due) {
+            sends.add(sqsMessageProducer.sendVideoForProcessing(
+                    row.getVideoId(), row.getS3Key(), row.getTier(), row.getCorrelationId()));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+        int published = 0;
+        for (int i = 0; i < due.size(); i++) {
+            TranscodeOutbox row = due.get(i);
+            CompletableFuture<String> send = sends.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                outcomes.put(row.getId(), Outcome.acked(send.get(remaining, TimeUnit.NANOSECONDS)));
+                published++;
+            } catch (ExecutionException e) {
+                outcomes.put(row.getId(), Outcome.failed(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            } catch (TimeoutException e) {
+                // It may still reach SQS; re-sending now would duplicate it, so keep the lease and wait
+                log.warn("No SQS ack yet for video {}, waiting for it on a later run", row.getVideoId());
+                pendingAcks.put(row.getId(), send);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingAcks.put(row.getId(), send);
+            }
+        }
+        log.info("Published {} of {} transcode jobs", published, due.size());
+    }
+
+    private void collectLateAcks(Map<Long, Outcome> outcomes) {
+        pendingAcks.forEach((id, send) -> {
+            if (send.isDone() && pendingAcks.remove(id, send)) {
+                try {
+                    outcomes.put(id, Outcome.acked(send.join()));
+                } catch (CompletionException | CancellationException e) {
+                    outcomes.put(id, Outcome.failed(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                }
+            }
+        });
+    }
+
+    private void record(Map<Long, Outcome> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        for (TranscodeOutbox row : outboxRepository.findAllById(outcomes.keySet())) {
+            if (row.getPublishedAt() != null) {
+                continue;
+            }
+            Outcome outcome = outcomes.get(row.getId());
+            if (outcome.error() == null) {
+                row.setPublishedAt(now);
+                row.setMessageId(outcome.messageId());
+                row.setLastError(null);
+            } else {
+                scheduleRetry(row, outcome.error(), now);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.transcode.purgeIntervalMs:3600000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int published = outboxRepository.deletePublishedBefore(now.minusHours(retentionHours));
+        // Rows that ran out of attempts; their video was already marked FAILED
+        int dead = outboxRepository.deleteDeadBefore(maxAttempts, now.minusHours(deadRetentionHours));
+        if (published > 0 || dead > 0) {
+            log.info("Purged {} published and {} dead outbox rows", published, dead);
+        }
+    }
+
+    private void scheduleRetry(TranscodeOutbox row, String error, LocalDateTime now) {
+        int attempts = row.getAttempts() + 1;
+        long backoffMs = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts, 20));
+        row.setAttempts(attempts);
+        row.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMs)));
+        row.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            // Out of retries: don't leave the video in QUEUED with nothing on the queue
+            try (var ignored = CorrelationIds.bind(row.getCorrelationId())) {
+                log.warn("Giving up on video {}: {}", row.getVideoId(), error);
+                videoService.markAsFailed(row.getVideoId());
+            }
+        }
+    }
+
+    private record Outcome(String messageId, String error) {
+        static Outcome acked(String messageId) {
+            return new Outcome(messageId, null);
+        }
+
+        static Outcome failed(String error) {
+            return new Outcome(null, error != null ? error : "Unknown error");
+        }
+    }
+}
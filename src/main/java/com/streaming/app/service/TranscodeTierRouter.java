@@ -0,0 +1,52 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeTier;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Picks the transcode tier for a job: a tenant with many jobs already in the pipeline is demoted to BULK
+ * so it can't starve everyone else, otherwise small uploads go to INTERACTIVE and the rest to STANDARD.
+ * <p>
+ * The tenant is whatever the uploader put in {@code tenantId}; there is no authentication behind it, so the
+ * demotion is advisory (it keeps cooperating bulk importers out of the way, it can't stop a client that omits
+ * or rotates the id). Uploads without a tenant are routed by size alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TranscodeTierRouter {
+
+    private static final Set<VideoStatus> IN_FLIGHT = EnumSet.of(VideoStatus.QUEUED, VideoStatus.PROCESSING);
+
+    private final VideoRepository videoRepository;
+
+    // File size is the only duration proxy available before the transcoder has probed the file
+    @Value("${transcode.tier.interactiveMaxBytes:268435456}")    // 256 MiB
+    private long interactiveMaxBytes;
+
+    @Value("${transcode.tier.tenantBulkThreshold:20}")
+    private long tenantBulkThreshold;
+
+    public TranscodeTier route(String tenantId, Long sizeBytes) {
+        // Anonymous uploads are not one tenant; counting them together would demote the whole site at once
+        long inFlight = tenantId == null || tenantId.isBlank() ? 0 : videoRepository.countByTenantInStatuses(tenantId, IN_FLIGHT);
+        TranscodeTier tier;
+        if (inFlight > tenantBulkThreshold) {
+            tier = TranscodeTier.BULK;
+        } else if (sizeBytes != null && sizeBytes <= interactiveMaxBytes) {
+            tier = TranscodeTier.INTERACTIVE;
+        } else {
+            tier = TranscodeTier.STANDARD;
+        }
+        log.debug("tenant: {}, size: {}, in flight: {} → {}", tenantId, sizeBytes, inFlight, tier);
+        return tier;
+    }
+}
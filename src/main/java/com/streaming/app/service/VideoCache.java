@@ -0,0 +1,151 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.model.VideoVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU of detached Video snapshots in front of {@code findById}. Entries are dropped on every
+ * {@link VideoStatusEvent}; PROCESSED videos stay until evicted, anything still in flight also expires after
+ * {@code videos.cache.mutableTtlSeconds} to bound staleness from writers on other nodes.
+ */
+@Component
+public class VideoCache {
+
+    private static final int STRIPES = 64;
+
+    @Value("${videos.cache.maxEntries:10000}")
+    private int maxEntries;
+
+    @Value("${videos.cache.mutableTtlSeconds:5}")
+    private long mutableTtlSeconds;
+
+    // Access-ordered map guarded by a lock (not synchronized, so virtual threads don't pin on it)
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Bumped on invalidation; a load that raced with one isn't cached
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public Optional<Video> get(Long id, Function<Long, Optional<Video>> loader) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                hits.incrementAndGet();
+                return Optional.of(entry.video());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.incrementAndGet();
+        long generation = generations.get(stripe(id));
+        Optional<Video> loaded = loader.apply(id).map(VideoCache::snapshot);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+
+        Video video = loaded.get();
+        long expiresAt = video.getStatus() == VideoStatus.PROCESSED ? Long.MAX_VALUE : now + mutableTtlSeconds * 1000L;
+        lock.lock();
+        try {
+            if (generations.get(stripe(id)) == generation) {
+                entries.put(id, new Entry(video, expiresAt));
+                Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+                while (entries.size() > maxEntries && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        lock.lock();
+        try {
+            generations.incrementAndGet(stripe(id));
+            entries.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    // After commit, so a reload can't pick up the pre-change row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(VideoStatusEvent event) {
+        invalidate(event.videoId());
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripe(Long id) {
+        return (int) (id & (STRIPES - 1));
+    }
+
+    // Detached copy, so callers never share managed state or a lazily-initialised collection
+    private static Video snapshot(Video video) {
+        List<VideoVariant> variants = new ArrayList<>();
+        if (video.getVariants() != null) {
+            for (VideoVariant v : video.getVariants()) {
+                variants.add(new VideoVariant(v.getQuality(), v.getS3Key(), v.getContentType(), v.getBandwidth(),
+                        v.getWidth(), v.getHeight(), v.getCodecs(), v.getDurationSeconds(), v.getInitSegmentKey(),
+                        v.getSegmentKeyTemplate(), v.getSegmentCount(), v.getSegmentDurationSeconds()));
+            }
+        }
+        return Video.builder()
+                .id(video.getId())
+                .title(video.getTitle())
+                .description(video.getDescription())
+                .contentType(video.getContentType())
+                .s3Key(video.getS3Key())
+                .fileName(video.getFileName())
+                .tenantId(video.getTenantId())
+                .sizeBytes(video.getSizeBytes())
+                .status(video.getStatus())
+                .variants(List.copyOf(variants))
+                .uploadedAt(video.getUploadedAt())
+                .processedAt(video.getProcessedAt())
+                .statusUpdatedAt(video.getStatusUpdatedAt())
+                .retryCount(video.getRetryCount())
+                .nextRetryAt(video.getNextRetryAt())
+                .build();
+    }
+
+    private record Entry(Video video, long expiresAtMillis) {}
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries) {}
+}
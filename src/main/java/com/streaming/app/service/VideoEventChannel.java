@@ -0,0 +1,143 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.util.ThreadFactories;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Cross-node relay of status changes over Postgres LISTEN/NOTIFY. Changes applied on this node are
+ * broadcast; changes from other nodes invalidate the local {@link VideoCache} and reach local SSE subscribers.
+ * The listener holds its own connection outside the Hikari pool.
+ */
+@Component
+@ConditionalOnProperty(name = "videos.events.notify.enabled", havingValue = "true")
+@Slf4j
+public class VideoEventChannel {
+
+    private static final String CHANNEL = "video_status_events";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate notifyTransaction;
+    private final DataSourceProperties dataSourceProperties;
+    private final VideoCache videoCache;
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    // Lets the listener skip notifications this node sent itself
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${videos.events.notify.reconnectDelayMs:5000}")
+    private long reconnectDelayMs;
+
+    private Thread listener;
+    private volatile boolean running;
+
+    public VideoEventChannel(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             DataSourceProperties dataSourceProperties, VideoCache videoCache,
+                             VideoStatusBroadcaster videoStatusBroadcaster) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notifyTransaction = new TransactionTemplate(transactionManager);
+        this.notifyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dataSourceProperties = dataSourceProperties;
+        this.videoCache = videoCache;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = ThreadFactories.named("video-event-listener", false).newThread(this::listenLoop);
+        listener.start();
+    }
+
+    /**
+     * Runs after the change has committed. The committed transaction's connection is still bound here with
+     * autocommit off and is rolled back on return to the pool, which would drop the NOTIFY, so it is sent in
+     * its own transaction. A failure only costs other nodes the cache TTL, never the status change itself.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(VideoStatusEvent event) {
+        try {
+            notifyTransaction.executeWithoutResult(status -> jdbcTemplate.queryForObject("select pg_notify(?, ?)",
+                    Object.class, CHANNEL, nodeId + ":" + event.videoId() + ":" + event.status()));
+        } catch (Exception e) {
+            // Other nodes fall back to the cache TTL for this change
+            log.warn("NOTIFY failed for video {}: {}", event.videoId(), e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening on {}", CHANNEL);
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(5000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                // Anything missed while disconnected is covered by the cache TTL and the SSE snapshot on reconnect
+                log.warn("Listener connection lost: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // "<nodeId>:<videoId>:<status>"
+    private void handle(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            Long videoId = Long.parseLong(parts[1]);
+            videoCache.invalidate(videoId);
+            videoStatusBroadcaster.onStatusChanged(
+                    new VideoStatusEvent(videoId, VideoStatus.valueOf(parts[2]), Instant.now()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed notification: {}", payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(10_000);
+    }
+}
@@ -1,78 +1,262 @@
 package com.streaming.app.service;
 
+import com.streaming.app.dto.BulkUploadUrlRequest;
 import com.streaming.app.dto.TranscodeResultDTO;
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.dto.VideoPageResponse;
+import com.streaming.app.dto.VideoSummaryDTO;
+import com.streaming.app.exception.InvalidCursorException;
+import com.streaming.app.model.RawObjectCleanup;
+import com.streaming.app.model.TranscodeOutbox;
+import com.streaming.app.model.TranscodeTier;
 import com.streaming.app.model.Video;
 import com.streaming.app.model.VideoStatus;
 import com.streaming.app.model.VideoVariant;
+import com.streaming.app.repository.RawObjectCleanupRepository;
+import com.streaming.app.repository.TranscodeOutboxRepository;
 import com.streaming.app.repository.VideoRepository;
+import com.streaming.app.util.CorrelationIds;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class VideoService {
 
+    // Allowed source states for each transition; a PROCESSED video is never moved backwards
+    private static final Set<VideoStatus> QUEUEABLE = EnumSet.of(VideoStatus.UPLOADED, VideoStatus.FAILED);
+    private static final Set<VideoStatus> PROCESSABLE = EnumSet.of(VideoStatus.UPLOADED, VideoStatus.QUEUED, VideoStatus.FAILED);
+    private static final Set<VideoStatus> FAILABLE = EnumSet.of(VideoStatus.UPLOADED, VideoStatus.QUEUED, VideoStatus.PROCESSING);
+
     private final VideoRepository videoRepository;
+    private final RawObjectCleanupRepository rawObjectCleanupRepository;
+    private final TranscodeOutboxRepository transcodeOutboxRepository;
     private final S3Service s3Service;
+    private final TranscodeTierRouter transcodeTierRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VideoCache videoCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${videos.page.maxSize:200}")
+    private int maxPageSize;
 
-    // Save metadata when upload URL is generated
-    public Video saveUploadedVideo(String fileName, String s3Key, String contentType) {
-        System.out.println("[VideoService] saveUploadedVideo - fileName: " + fileName + ", s3Key: " + s3Key);
+    // Save metadata when upload URL is generated; the raw key embeds the generated id
+    @Transactional
+    public Video saveUploadedVideo(String fileName, String contentType, String tenantId) {
+        log.debug("saveUploadedVideo - fileName: {}, tenant: {}", fileName, tenantId);
 
+        LocalDateTime now = videoRepository.databaseNow();
         Video video = Video.builder()
                 .fileName(fileName)
-                .s3Key(s3Key)
                 .contentType(contentType)
+                .tenantId(tenantId)
                 .status(VideoStatus.UPLOADED)
-                .uploadedAt(LocalDateTime.now())
+                .uploadedAt(now)
+                .statusUpdatedAt(now)
                 .build();
 
         Video saved = videoRepository.save(video);
-        System.out.println("[VideoService] Video saved with ID: " + saved.getId());
+        saved.setS3Key(s3Service.generateRawVideoKey(saved.getId(), fileName));
+        log.debug("Video saved with ID: {}, s3Key: {}", saved.getId(), saved.getS3Key());
+        return saved;
+    }
+
+    /**
+     * Inserts one UPLOADED row per file in a single transaction. Ids come from the pooled videos_seq, so
+     * Hibernate batches the inserts (hibernate.jdbc.batch_size) instead of one round-trip per row.
+     */
+    @Transactional
+    public List<Video> saveUploadedVideos(List<BulkUploadUrlRequest.FileDTO> files, String tenantId) {
+        log.info("saveUploadedVideos - {} files, tenant: {}", files.size(), tenantId);
+        LocalDateTime now = videoRepository.databaseNow();
+        List<Video> videos = files.stream()
+                .map(file -> Video.builder()
+                        .fileName(file.getFileName())
+                        .contentType(file.getContentType())
+                        .tenantId(tenantId)
+                        .status(VideoStatus.UPLOADED)
+                        .uploadedAt(now)
+                        .statusUpdatedAt(now)
+                        .build())
+                .toList();
+
+        List<Video> saved = videoRepository.saveAll(videos);
+        // Ids are assigned at persist time, before the batched INSERTs are flushed
+        saved.forEach(video -> video.setS3Key(s3Service.generateRawVideoKey(video.getId(), video.getFileName())));
         return saved;
     }
 
+    public Optional<VideoStatus> getVideoStatus(Long id) {
+        return videoRepository.findStatusById(id);
+    }
+
+    // Read-through VideoCache; the returned Video is a detached snapshot and must not be modified
     public Optional<Video> getVideoById(Long id) {
-        System.out.println("[VideoService] getVideoById - id: " + id);
-        Optional<Video> video = videoRepository.findById(id);
-        System.out.println("[VideoService] Video found: " + video.isPresent());
+        log.debug("getVideoById - id: {}", id);
+        Optional<Video> video = videoCache.get(id, videoRepository::findById);
+        log.debug("Video found: {}", video.isPresent());
         return video;
     }
 
-    public List<Video> getVideosByStatus(VideoStatus status) {
-        System.out.println("[VideoService] getVideosByStatus - status: " + status);
-        List<Video> videos = videoRepository.findByStatus(status);
-        System.out.println("[VideoService] Found " + videos.size() + " videos");
-        return videos;
+    /**
+     * One page of videos in (uploadedAt, id) order. {@code cursor} is the opaque nextCursor of the
+     * previous page, or null for the first one.
+     */
+    public VideoPageResponse getVideosByStatus(VideoStatus status, String cursor, int limit, boolean includeVariants) {
+        log.debug("getVideosByStatus - status: {}, limit: {}", status, limit);
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        // Fetch one extra row to know whether another page exists without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<VideoSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = videoRepository.findSummariesByStatus(status, fetchLimit);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = videoRepository.findSummariesByStatusAfter(status, after.uploadedAt(), after.id(), fetchLimit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            VideoSummaryDTO last = rows.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getUploadedAt(), last.getId()).encode();
+        }
+
+        if (includeVariants && !rows.isEmpty()) {
+            attachVariants(rows);
+        }
+
+        log.debug("Found {} videos, hasMore: {}", rows.size(), nextCursor != null);
+        return new VideoPageResponse(rows, nextCursor);
+    }
+
+    private void attachVariants(List<VideoSummaryDTO> rows) {
+        Map<Long, VideoSummaryDTO> byId = new HashMap<>();
+        for (VideoSummaryDTO row : rows) {
+            row.setVariants(new ArrayList<>());
+            byId.put(row.getId(), row);
+        }
+        for (Object[] pair : videoRepository.findVariantsByVideoIds(byId.keySet())) {
+            byId.get((Long) pair[0]).getVariants().add((VideoVariant) pair[1]);
+        }
     }
 
-    public void markQueued(Long videoId) {
-        System.out.println("[VideoService] markQueued - videoId: " + videoId);
-        videoRepository.findById(videoId).ifPresent(video -> {
-            video.setStatus(VideoStatus.QUEUED);
-            videoRepository.save(video);
-            System.out.println("[VideoService] Video " + videoId + " status changed to QUEUED");
-        });
+    public boolean markQueued(Long videoId) {
+        log.debug("markQueued - videoId: {}", videoId);
+        return transition(videoId, QUEUEABLE, VideoStatus.QUEUED);
     }
 
-    public void markAsProcessing(Long videoId) {
-        System.out.println("[VideoService] markAsProcessing - videoId: " + videoId);
-        videoRepository.findById(videoId).ifPresent(video -> {
-            video.setStatus(VideoStatus.PROCESSING);
-            videoRepository.save(video);
-            System.out.println("[VideoService] Video " + videoId + " status changed to PROCESSING");
-        });
+    /**
+     * QUEUED transition plus the transcode outbox row in one transaction; TranscodeOutboxRelay
+     * publishes the row to the SQS queue of the job's tier. Returns false if the video was not in a queueable state.
+     */
+    @Transactional
+    public boolean queueForProcessing(Long videoId, String s3Key, Long sizeBytes) {
+        if (!markQueued(videoId)) {
+            return false;
+        }
+        if (sizeBytes != null) {
+            videoRepository.updateSizeBytes(videoId, sizeBytes);
+        }
+        String tenantId = videoRepository.findTenantIdById(videoId).orElse(null);
+        TranscodeTier tier = transcodeTierRouter.route(tenantId, sizeBytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        transcodeOutboxRepository.save(TranscodeOutbox.builder()
+                .videoId(videoId)
+                .s3Key(s3Key)
+                .tier(tier)
+                .correlationId(CorrelationIds.currentOrNew())
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        log.info("Transcode job for video {} written to outbox ({})", videoId, tier);
+        return true;
+    }
+
+    /**
+     * Puts a stuck QUEUED/PROCESSING video back on the queue, as long as its status hasn't changed since
+     * {@code stuck} was read. The transcode job goes out through the outbox after {@code backoff}.
+     * {@code databaseNow} is the database clock the reaper compared statusUpdatedAt against.
+     */
+    @Transactional
+    public boolean requeueStuck(VideoRepository.StuckVideo stuck, VideoStatus status,
+                                LocalDateTime databaseNow, Duration backoff) {
+        LocalDateTime nextRetryAt = databaseNow.plus(backoff);
+        if (videoRepository.requeueIfUnchanged(stuck.getId(), status, stuck.getStatusUpdatedAt(), nextRetryAt) != 1) {
+            return false;
+        }
+        // The relay compares nextAttemptAt with the app clock
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff);
+        transcodeOutboxRepository.save(TranscodeOutbox.builder()
+                .videoId(stuck.getId())
+                .s3Key(stuck.getS3Key())
+                .tier(transcodeTierRouter.route(stuck.getTenantId(), stuck.getSizeBytes()))
+                .correlationId(CorrelationIds.currentOrNew())
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(nextAttemptAt)
+                .build());
+        eventPublisher.publishEvent(new VideoStatusEvent(stuck.getId(), VideoStatus.QUEUED, Instant.now()));
+        log.info("Stuck video {} requeued from {}, next attempt at {}", stuck.getId(), status, nextRetryAt);
+        return true;
+    }
+
+    public boolean markAsProcessing(Long videoId) {
+        log.debug("markAsProcessing - videoId: {}", videoId);
+        return transition(videoId, PROCESSABLE, VideoStatus.PROCESSING);
+    }
+
+    /**
+     * Records that the transcoder is still working on a PROCESSING video, which pushes back its reaper deadline.
+     * Returns false when the video isn't PROCESSING.
+     */
+    public boolean heartbeat(Long videoId) {
+        log.debug("heartbeat - videoId: {}", videoId);
+        return videoRepository.touchProcessing(videoId) == 1;
+    }
+
+    /**
+     * Moves a video to {@code to} only if it is currently in one of {@code from}, in a single UPDATE.
+     * Returns false when the video doesn't exist or another caller already moved it.
+     */
+    public boolean transition(Long videoId, Set<VideoStatus> from, VideoStatus to) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean applied = videoRepository.transitionStatus(videoId, from, to) == 1;
+        sample.stop(meterRegistry.timer("video.transition", "to", to.name(), "applied", Boolean.toString(applied)));
+        if (applied) {
+            eventPublisher.publishEvent(new VideoStatusEvent(videoId, to, Instant.now()));
+        }
+        log.info("Video {} transition to {} {}", videoId, to, applied ? "applied" : "skipped");
+        return applied;
     }
 
     // Save transcoded variants after processing
+    @Transactional
     public void saveTranscodedVariants(TranscodeResultDTO dto) {
-        System.out.println("[VideoService] saveTranscodedVariants - videoId: " + dto.getVideoId() +
-                ", variants: " + dto.getVariants().size());
+        log.debug("saveTranscodedVariants - videoId: {}, variants: {}", dto.getVideoId(), dto.getVariants().size());
 
         videoRepository.findById(dto.getVideoId()).ifPresent(video -> {
 
@@ -81,81 +265,112 @@ public class VideoService {
                     .map(v -> new VideoVariant(
                             v.getQuality(),
                             v.getS3Key(),  // Store S3 key for future reference
-                            v.getContentType() != null ? v.getContentType() : video.getContentType()
+                            v.getContentType() != null ? v.getContentType() : video.getContentType(),
+                            v.getBandwidth(),
+                            v.getWidth(),
+                            v.getHeight(),
+                            v.getCodecs(),
+                            v.getDurationSeconds(),
+                            v.getInitSegmentKey(),
+                            v.getSegmentKeyTemplate(),
+                            v.getSegmentCount(),
+                            v.getSegmentDurationSeconds()
                     ))
                     .collect(Collectors.toList());
 
             video.setVariants(variants);
             video.setStatus(VideoStatus.PROCESSED);
-            video.setProcessedAt(LocalDateTime.now());
+            video.setProcessedAt(videoRepository.databaseNow());
+            video.setStatusUpdatedAt(video.getProcessedAt());
 
             // Update video's s3Key to processed bucket base path
             String previousRawKey = video.getS3Key();
             String processedBaseKey = "processed-videos/" + video.getId() + "/";
             video.setS3Key(processedBaseKey);
 
-            // Delete raw video from S3 to save storage
+            // Raw video is deleted later by RawObjectCleanupWorker; the outbox row commits with the video update
             if (previousRawKey != null && !previousRawKey.startsWith("processed-videos/")) {
-                try {
-                    System.out.println("[VideoService] Deleting raw S3 object: " + previousRawKey);
-                    s3Service.deleteRawFile(previousRawKey);
-                } catch (Exception ex) {
-                    // Log and continue; deletion failure should not block DB update
-                    System.err.println("[VideoService] Failed to delete raw S3 object '" +
-                            previousRawKey + "': " + ex.getMessage());
-                }
+                log.info("Scheduling raw S3 object for cleanup: {}", previousRawKey);
+                LocalDateTime now = LocalDateTime.now();
+                rawObjectCleanupRepository.save(RawObjectCleanup.builder()
+                        .s3Key(previousRawKey)
+                        .createdAt(now)
+                        .nextAttemptAt(now)
+                        .build());
             }
 
             videoRepository.save(video);
-            System.out.println("[VideoService] Video " + video.getId() + " saved with " +
-                    variants.size() + " variants, status: PROCESSED");
+            recordPipelineDuration(video);
+            eventPublisher.publishEvent(new VideoStatusEvent(video.getId(), VideoStatus.PROCESSED, Instant.now()));
+            log.info("Video {} saved with {} variants, status: PROCESSED", video.getId(), variants.size());
         });
     }
 
-    public void markAsFailed(Long videoId) {
-        System.out.println("[VideoService] markAsFailed - videoId: " + videoId);
-        videoRepository.findById(videoId).ifPresent(video -> {
-            video.setStatus(VideoStatus.FAILED);
-            videoRepository.save(video);
-            System.out.println("[VideoService] Video " + videoId + " status changed to FAILED");
-        });
+    // End-to-end upload -> PROCESSED latency, once per video, tagged with the tier that routed its transcode job
+    private void recordPipelineDuration(Video video) {
+        if (video.getUploadedAt() == null) {
+            return;
+        }
+        // Rows written before tiers existed went to the STANDARD queue; purged rows leave the tier unknown
+        String tier = transcodeOutboxRepository.findFirstByVideoIdOrderByIdDesc(video.getId())
+                .map(job -> job.getTier() != null ? job.getTier() : TranscodeTier.STANDARD)
+                .map(TranscodeTier::name)
+                .orElse("unknown");
+        Timer.builder("video.pipeline.duration")
+                .description("Time from upload URL issue to PROCESSED")
+                .tag("tier", tier)
+                .register(meterRegistry)
+                .record(Duration.between(video.getUploadedAt(), video.getProcessedAt()));
+    }
+
+    public boolean markAsFailed(Long videoId) {
+        log.debug("markAsFailed - videoId: {}", videoId);
+        return transition(videoId, FAILABLE, VideoStatus.FAILED);
     }
 
     public Long resolveVideoIdFromS3Key(String s3Key) {
-        System.out.println("[VideoService] resolveVideoIdFromS3Key - s3Key: " + s3Key);
+        log.debug("resolveVideoIdFromS3Key - s3Key: {}", s3Key);
 
         // Validate s3Key format
         if (s3Key == null || !s3Key.contains("/")) {
-            System.out.println("[VideoService] ERROR: Invalid S3 key format: " + s3Key);
+            log.warn("Invalid S3 key format: {}", s3Key);
             throw new IllegalArgumentException("Invalid S3 key format: " + s3Key);
         }
 
-        // Extract filename part: "raw-videos/UUID-test.mp4" → "UUID-test.mp4"
-        String fileNamePart = s3Key.substring(s3Key.lastIndexOf("/") + 1);
-
-        // Extract original filename: "UUID-test.mp4" → "test.mp4"
-        int dashIndex = fileNamePart.indexOf("-");
-        if (dashIndex == -1) {
-            throw new IllegalArgumentException("S3 key does not contain expected UUID prefix: " + s3Key);
+        // Current layout "raw-videos/{videoId}/{fileName}" resolves without touching the DB
+        Optional<Long> fromKey = s3Service.extractVideoIdFromRawKey(s3Key);
+        if (fromKey.isPresent()) {
+            log.debug("Video id parsed from s3Key: {}", fromKey.get());
+            return fromKey.get();
         }
 
-        String originalFileName = fileNamePart.substring(dashIndex + 1);
-
-        // Try lookup by exact s3Key first
+        // Legacy "raw-videos/UUID-name" keys: exact match on the unique s3_key index
         Optional<Video> byS3Key = videoRepository.findByS3Key(s3Key);
         if (byS3Key.isPresent()) {
-            System.out.println("[VideoService] Video found by s3Key: " + byS3Key.get().getId());
+            log.debug("Video found by s3Key: {}", byS3Key.get().getId());
             return byS3Key.get().getId();
         }
 
-        // Fallback: lookup by original file name
-        Optional<Video> byFileName = videoRepository.findByFileName(originalFileName);
-        if (byFileName.isPresent()) {
-            System.out.println("[VideoService] Video found by fileName: " + byFileName.get().getId());
-            return byFileName.get().getId();
+        log.warn("No video found for S3 key: {}", s3Key);
+        throw new IllegalStateException("No video found for S3 key: " + s3Key);
+    }
+
+    // Opaque keyset position: base64url("<uploadedAt>|<id>")
+    private record PageCursor(LocalDateTime uploadedAt, Long id) {
+
+        String encode() {
+            String raw = uploadedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
 
-        System.out.println("[VideoService] ERROR: No video found for S3 key: " + s3Key);
-        throw new IllegalStateException("No video found for S3 key: " + s3Key);
+        static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new PageCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
     }
-}
\ No newline at end of file
+}
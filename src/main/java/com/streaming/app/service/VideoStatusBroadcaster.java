@@ -0,0 +1,257 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.util.ThreadFactories;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process fan-out of {@link VideoStatusEvent}s to Server-Sent Events subscribers.
+ * Each subscriber has a bounded buffer drained on a shared sender pool, so a slow client never blocks
+ * the thread that changed the status; a client that falls too far behind is disconnected and resumes
+ * with Last-Event-ID from the short per-video replay log.
+ */
+@Service
+public class VideoStatusBroadcaster {
+
+    private static final Set<VideoStatus> TERMINAL = Set.of(VideoStatus.PROCESSED, VideoStatus.FAILED);
+
+    @Value("${sse.status.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    @Value("${sse.status.heartbeatSeconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${sse.status.bufferSize:32}")
+    private int bufferSize;
+
+    @Value("${sse.status.replaySize:16}")
+    private int replaySize;
+
+    @Value("${sse.status.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${sse.status.senderThreads:4}")
+    private int senderThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<Sequenced>> replay = new ConcurrentHashMap<>();
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeats;
+
+    @PostConstruct
+    public void start() {
+        this.senders = ThreadFactories.blockingExecutor("sse-sender", senderThreads, virtualThreads);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("sse-heartbeat", false));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Registers a subscriber for one video. Unless the events after {@code lastEventId} can be replayed, the
+     * subscriber first gets the status from {@code currentStatus}, read only after registration so no change
+     * can slip in between. Returns null when at capacity.
+     */
+    public SseEmitter subscribe(Long videoId, String lastEventId, Supplier<VideoStatus> currentStatus) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(videoId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.computeIfAbsent(videoId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        List<Sequenced> missed = replaySince(videoId, lastEventId);
+        if (missed != null && !missed.isEmpty()) {
+            missed.forEach(event -> enqueue(subscriber, event));
+        } else if (missed == null) {
+            long id = sequence.get();
+            enqueue(subscriber, new Sequenced(id, new VideoStatusEvent(videoId, currentStatus.get(), null)));
+        }
+        return emitter;
+    }
+
+    // After commit, so subscribers never see a status that was rolled back; outside a transaction it runs immediately
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(VideoStatusEvent event) {
+        Sequenced sequenced = new Sequenced(sequence.incrementAndGet(), event);
+        replayLock.lock();
+        try {
+            Deque<Sequenced> log = replay.computeIfAbsent(event.videoId(), id -> new ArrayDeque<>());
+            log.addLast(sequenced);
+            while (log.size() > replaySize) {
+                log.removeFirst();
+            }
+        } finally {
+            replayLock.unlock();
+        }
+
+        // Nothing more happens to a finished video; late resumers get the final status from the DB instead
+        if (TERMINAL.contains(event.status())) {
+            replay.remove(event.videoId());
+        }
+
+        Set<Subscriber> targets = subscribers.get(event.videoId());
+        if (targets != null) {
+            targets.forEach(subscriber -> enqueue(subscriber, sequenced));
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(subscriberCount.get(), replay.size(), delivered.get(), dropped.get());
+    }
+
+    // null means "can't resume": no or unparsable id, or the id predates the replay log (e.g. another node/restart)
+    private List<Sequenced> replaySince(Long videoId, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        replayLock.lock();
+        try {
+            Deque<Sequenced> log = replay.get(videoId);
+            if (log == null || log.isEmpty() || after > sequence.get() || log.peekFirst().id() > after + 1) {
+                return null;
+            }
+            List<Sequenced> missed = new ArrayList<>();
+            for (Sequenced event : log) {
+                if (event.id() > after) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Sequenced event) {
+        if (!subscriber.buffer().offer(event)) {
+            // Too far behind: cut it loose, the client reconnects with Last-Event-ID
+            dropped.incrementAndGet();
+            subscriber.emitter().complete();
+            remove(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining().compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Sequenced event;
+            while ((event = subscriber.buffer().poll()) != null) {
+                if (event.event() == null) {
+                    subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                subscriber.emitter().send(SseEmitter.event()
+                        .id(Long.toString(event.id()))
+                        .name("status")
+                        .data(event.event(), MediaType.APPLICATION_JSON));
+                delivered.incrementAndGet();
+                if (TERMINAL.contains(event.event().status())) {
+                    subscriber.emitter().complete();
+                    remove(subscriber);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // Client disconnected; the container calls onError/onCompletion as well
+            subscriber.emitter().completeWithError(e);
+            remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining().set(false);
+        }
+        // An event may have arrived between the last poll and clearing the flag
+        if (!subscriber.buffer().isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    // Keeps proxies and load balancers from closing idle streams
+    private void heartbeat() {
+        Sequenced marker = new Sequenced(0, null);
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.buffer().isEmpty() && subscriber.buffer().offer(marker)) {
+                scheduleDrain(subscriber);
+            }
+        }));
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> set = subscribers.get(subscriber.videoId());
+        if (set != null && set.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            if (set.isEmpty()) {
+                subscribers.remove(subscriber.videoId(), set);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter().complete()));
+        senders.shutdownNow();
+    }
+
+    private record Subscriber(Long videoId, SseEmitter emitter, BlockingQueue<Sequenced> buffer, AtomicBoolean draining) {
+        Subscriber(Long videoId, SseEmitter emitter, BlockingQueue<Sequenced> buffer) {
+            this(videoId, emitter, buffer, new AtomicBoolean());
+        }
+    }
+
+    // A heartbeat is a Sequenced with a null event
+    private record Sequenced(long id, VideoStatusEvent event) {}
+
+    public record Stats(int subscribers, int replayLogs, long delivered, long dropped) {}
+}
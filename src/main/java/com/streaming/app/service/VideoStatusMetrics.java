@@ -0,0 +1,50 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes per-status video counts as {@code videos.status} gauges. Counts come from one GROUP BY on a
+ * schedule, so a Prometheus scrape never touches the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class VideoStatusMetrics {
+
+    private final VideoRepository videoRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<VideoStatus, AtomicLong> counts = new EnumMap<>(VideoStatus.class);
+
+    @PostConstruct
+    public void registerGauges() {
+        for (VideoStatus status : VideoStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            counts.put(status, count);
+            Gauge.builder("videos.status", count, AtomicLong::get)
+                    .description("Videos currently in each status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.videoStatus.refreshMs:30000}")
+    public void refresh() {
+        Map<VideoStatus, Long> latest = new EnumMap<>(VideoStatus.class);
+        for (Object[] row : videoRepository.countGroupedByStatus()) {
+            latest.put((VideoStatus) row[0], (Long) row[1]);
+        }
+        // Statuses with no rows are absent from the GROUP BY and drop back to zero
+        counts.forEach((status, count) -> count.set(latest.getOrDefault(status, 0L)));
+    }
+}
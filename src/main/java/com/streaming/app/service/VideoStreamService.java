@@ -0,0 +1,345 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.VideoVariant;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Proxies a processed variant to the client with Range / If-Range / 206 semantics.
+ * Bytes are copied from the S3 response stream through one fixed-size buffer per request,
+ * the leading bytes of each variant are served from {@link HotSegmentCache} when warm, and whole
+ * objects that fit {@link DiskSegmentCache} are filled in the background and then read from local disk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoStreamService {
+
+    private final S3Service s3Service;
+    private final HotSegmentCache hotSegmentCache;
+    private final DiskSegmentCache diskSegmentCache;
+
+    @Value("${streaming.proxy.bufferBytes:65536}")
+    private int bufferBytes;
+
+    public void stream(VideoVariant variant, String rangeHeader, String ifRangeHeader,
+                       HttpServletResponse response) throws IOException {
+        String s3Key = variant.getS3Key();
+        ByteRange requested = ByteRange.parse(rangeHeader);
+
+        Optional<DiskSegmentCache.CachedObject> onDisk = diskSegmentCache.get(s3Key);
+        if (onDisk.isPresent()) {
+            DiskSegmentCache.CachedObject cached = onDisk.get();
+            if (requested != null && ifRangeHeader != null && !ifRangeMatches(ifRangeHeader, cached.eTag(), cached.lastModified())) {
+                requested = null;
+            }
+            streamFromDisk(cached, requested, response);
+            return;
+        }
+
+        Optional<HotSegmentCache.Prefix> prefix = hotSegmentCache.get(s3Key);
+        if (prefix.isEmpty() && (requested == null || requested.startsBefore(hotSegmentCache.prefixBytes()))) {
+            prefix = fillPrefix(s3Key);
+        }
+
+        if (prefix.isPresent()) {
+            HotSegmentCache.Prefix p = prefix.get();
+            // If-Range that no longer matches means the client's partial copy is stale: send the whole object
+            if (requested != null && ifRangeHeader != null && !ifRangeMatches(ifRangeHeader, p.eTag(), p.lastModified())) {
+                requested = null;
+            }
+            // Single-flight and asynchronous: this request still streams from S3, later ones hit the disk copy
+            if (!p.isComplete() && diskSegmentCache.accepts(p.objectSize())) {
+                diskSegmentCache.fill(s3Key);
+            }
+            streamWithPrefix(s3Key, p, requested, response);
+        } else {
+            streamFromS3(s3Key, variant.getContentType(), requested, ifRangeHeader, response);
+        }
+    }
+
+    // One ranged GET for the first prefixBytes; empty if the object can't be prefetched (e.g. zero length)
+    private Optional<HotSegmentCache.Prefix> fillPrefix(String s3Key) {
+        try {
+            ResponseBytes<GetObjectResponse> bytes =
+                    s3Service.getProcessedObjectBytes(s3Key, "bytes=0-" + (hotSegmentCache.prefixBytes() - 1));
+            GetObjectResponse meta = bytes.response();
+            long objectSize = totalSize(meta.contentRange(), bytes.asByteArrayUnsafe().length);
+            HotSegmentCache.Prefix prefix = new HotSegmentCache.Prefix(
+                    bytes.asByteArrayUnsafe(), objectSize, meta.eTag(), meta.lastModified(), meta.contentType());
+            hotSegmentCache.put(s3Key, prefix);
+            return Optional.of(prefix);
+        } catch (S3Exception e) {
+            log.debug("Prefix fill skipped for {}: {}", s3Key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void streamWithPrefix(String s3Key, HotSegmentCache.Prefix prefix, ByteRange requested,
+                                  HttpServletResponse response) throws IOException {
+        long[] span = startResponse(response, requested, prefix.objectSize());
+        if (span == null) {
+            return;
+        }
+        long start = span[0];
+        long end = span[1];
+        writeHeaders(response, prefix.contentType(), end - start + 1, prefix.eTag(), prefix.lastModified());
+
+        OutputStream out = response.getOutputStream();
+        int cached = prefix.bytes().length;
+        if (start < cached) {
+            int to = (int) Math.min(end + 1, cached);
+            out.write(prefix.bytes(), (int) start, to - (int) start);
+            start = to;
+        }
+        if (start > end) {
+            return;
+        }
+
+        // Remainder past the cached prefix; If-Match guards against the object changing underneath us
+        try (ResponseInputStream<GetObjectResponse> in =
+                     s3Service.getProcessedObject(s3Key, "bytes=" + start + "-" + end, prefix.eTag())) {
+            copy(in, out);
+        } catch (S3Exception e) {
+            hotSegmentCache.invalidate(s3Key);
+            // Headers are already committed, so the only honest signal left is to break the connection
+            throw new IOException("Object " + s3Key + " changed while streaming: " + e.getMessage(), e);
+        }
+    }
+
+    private void streamFromDisk(DiskSegmentCache.CachedObject cached, ByteRange requested,
+                                HttpServletResponse response) throws IOException {
+        long[] span = startResponse(response, requested, cached.size());
+        if (span == null) {
+            return;
+        }
+        writeHeaders(response, cached.contentType(), span[1] - span[0] + 1, cached.eTag(), cached.lastModified());
+        OutputStream out = response.getOutputStream();
+        diskSegmentCache.write(cached, span[0], span[1], out, new byte[bufferBytes]);
+        out.flush();
+    }
+
+    // Sets 200/206 (or 416) for an object of known size; returns the [first, last] byte span, or null if unsatisfiable
+    private static long[] startResponse(HttpServletResponse response, ByteRange requested, long size) {
+        if (requested == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            return new long[]{0, size - 1};
+        }
+        long[] resolved = requested.resolve(size);
+        if (resolved == null) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return null;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + resolved[0] + "-" + resolved[1] + "/" + size);
+        return resolved;
+    }
+
+    private void streamFromS3(String s3Key, String fallbackContentType, ByteRange requested, String ifRangeHeader,
+                              HttpServletResponse response) throws IOException {
+        String range = requested != null ? requested.toHeader() : null;
+        String ifMatch = null;
+        if (range != null && ifRangeHeader != null) {
+            if (ifRangeHeader.startsWith("\"")) {
+                ifMatch = ifRangeHeader;
+            } else {
+                ifMatch = eTagIfDateMatches(s3Key, ifRangeHeader);
+            }
+            // Weak, unparseable or non-matching validators (RFC 9110 13.1.5): send the full representation
+            if (ifMatch == null) {
+                range = null;
+            }
+        }
+
+        ResponseInputStream<GetObjectResponse> in;
+        try {
+            in = s3Service.getProcessedObject(s3Key, range, ifMatch);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 412) {
+                // If-Range validator no longer matches: fall back to the full representation
+                in = s3Service.getProcessedObject(s3Key, null, null);
+                range = null;
+            } else if (e.statusCode() == 416) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                unsatisfiedRange(s3Key, e).ifPresent(contentRange -> response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange));
+                return;
+            } else {
+                throw e;
+            }
+        }
+
+        try (ResponseInputStream<GetObjectResponse> body = in) {
+            GetObjectResponse meta = body.response();
+            if (range != null && meta.contentRange() != null) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, meta.contentRange());
+            } else {
+                response.setStatus(HttpServletResponse.SC_OK);
+            }
+            String contentType = meta.contentType() != null ? meta.contentType() : fallbackContentType;
+            writeHeaders(response, contentType, meta.contentLength(), meta.eTag(), meta.lastModified());
+            copy(body, response.getOutputStream());
+        }
+    }
+
+    /**
+     * A date If-Range only matches a Last-Modified that is exactly equal (RFC 9110 13.1.5), which S3 has no
+     * condition for. The object's current ETag is returned when the date matches, so the ranged GET can be
+     * pinned to that exact version with If-Match; null when it doesn't match.
+     */
+    private String eTagIfDateMatches(String s3Key, String ifRangeHeader) {
+        Instant date = parseHttpDate(ifRangeHeader);
+        if (date == null) {
+            return null;
+        }
+        HeadObjectResponse head;
+        try {
+            head = s3Service.headProcessedObject(s3Key);
+        } catch (S3Exception e) {
+            // Let the GET itself report a missing object
+            log.debug("If-Range HEAD failed for {}: {}", s3Key, e.getMessage());
+            return null;
+        }
+        return ifRangeMatches(ifRangeHeader, head.eTag(), head.lastModified()) ? head.eTag() : null;
+    }
+
+    // "bytes */<size>" for a 416: from S3's own error response when present, otherwise from a HEAD
+    private Optional<String> unsatisfiedRange(String s3Key, S3Exception e) {
+        if (e.awsErrorDetails() != null && e.awsErrorDetails().sdkHttpResponse() != null) {
+            Optional<String> fromS3 = e.awsErrorDetails().sdkHttpResponse().firstMatchingHeader(HttpHeaders.CONTENT_RANGE);
+            if (fromS3.isPresent()) {
+                return fromS3;
+            }
+        }
+        try {
+            Long size = s3Service.headProcessedObject(s3Key).contentLength();
+            return Optional.ofNullable(size).map(s -> "bytes */" + s);
+        } catch (S3Exception headFailure) {
+            log.debug("Size lookup for 416 failed for {}: {}", s3Key, headFailure.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeHeaders(HttpServletResponse response, String contentType, Long contentLength,
+                              String eTag, Instant lastModified) {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (contentType != null) response.setContentType(contentType);
+        if (contentLength != null) response.setContentLengthLong(contentLength);
+        if (eTag != null) response.setHeader(HttpHeaders.ETAG, eTag);
+        if (lastModified != null) response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.toEpochMilli());
+    }
+
+    // Bounded memory per connection: one reusable buffer, no full buffering of the object
+    private void copy(ResponseInputStream<GetObjectResponse> in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[bufferBytes];
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Client went away (seek, tab closed): don't drain the rest of the S3 body into the void
+            in.abort();
+            throw e;
+        }
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String eTag, Instant lastModified) {
+        if (ifRange.startsWith("W/")) {
+            return false;   // weak validators never satisfy If-Range
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        Instant date = parseHttpDate(ifRange);
+        return date != null && lastModified != null && date.getEpochSecond() == lastModified.getEpochSecond();
+    }
+
+    private static Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).withZoneSameInstant(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // "bytes 0-2097151/734003200" → 734003200; falls back to the body length for non-partial responses
+    private static long totalSize(String contentRange, long bodyLength) {
+        if (contentRange != null) {
+            int slash = contentRange.lastIndexOf('/');
+            if (slash >= 0 && !contentRange.endsWith("*")) {
+                return Long.parseLong(contentRange.substring(slash + 1).trim());
+            }
+        }
+        return bodyLength;
+    }
+
+    /**
+     * A single "bytes=" range. {@code start == null} is a suffix range of the last {@code end} bytes;
+     * {@code end == null} is open-ended.
+     */
+    record ByteRange(Long start, Long end) {
+
+        // Multi-range and malformed headers return null, i.e. the full representation is served
+        static ByteRange parse(String header) {
+            if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String from = spec.substring(0, dash).trim();
+                String to = spec.substring(dash + 1).trim();
+                if (from.isEmpty()) {
+                    return to.isEmpty() ? null : new ByteRange(null, Long.parseLong(to));
+                }
+                Long start = Long.parseLong(from);
+                Long end = to.isEmpty() ? null : Long.parseLong(to);
+                return end != null && end < start ? null : new ByteRange(start, end);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean startsBefore(long offset) {
+            return start != null && start < offset;
+        }
+
+        // [first, last] within an object of {@code size} bytes, or null if unsatisfiable
+        long[] resolve(long size) {
+            if (start == null) {
+                if (end == 0 || size == 0) return null;
+                return new long[]{Math.max(0, size - end), size - 1};
+            }
+            if (start >= size) return null;
+            return new long[]{start, end == null ? size - 1 : Math.min(end, size - 1)};
+        }
+
+        String toHeader() {
+            return "bytes=" + (start != null ? start : "") + "-" + (end != null ? end : "");
+        }
+    }
+}
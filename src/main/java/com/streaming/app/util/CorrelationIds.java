@@ -0,0 +1,45 @@
+package com.streaming.app.util;
+
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Correlation id carried from the upload event through the transcode outbox and SQS to the ECS callbacks.
+ * Held in the SLF4J MDC under {@link #MDC_KEY}, so every log line on the request thread includes it.
+ */
+public final class CorrelationIds {
+    private CorrelationIds() {}
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String MDC_KEY = "correlationId";
+    // SQS message attribute name; the transcoder echoes it back in the HEADER of its callbacks
+    public static final String MESSAGE_ATTRIBUTE = "correlationId";
+
+    // Ids arrive from outside (headers, EventBridge), so only short, log-safe values are accepted
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    public static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    // The id if it is usable as-is, otherwise a freshly generated one
+    public static String sanitize(String candidate) {
+        return candidate != null && VALID.matcher(candidate).matches() ? candidate : newId();
+    }
+
+    public static String current() {
+        return MDC.get(MDC_KEY);
+    }
+
+    // Current id, or a new one when running outside a request (scheduled jobs)
+    public static String currentOrNew() {
+        String id = current();
+        return id != null ? id : newId();
+    }
+
+    public static MDC.MDCCloseable bind(String id) {
+        return MDC.putCloseable(MDC_KEY, id != null ? id : newId());
+    }
+}
@@ -7,6 +7,10 @@ public final class ResponseMessages {
     public static final String UNABLE_TO_READ_BODY = "Unable to read request body for signature verification.";
     public static final String INVALID_SIGNATURE = "Invalid ECS Signature";
     public static final String SIGNATURE_VALIDATION_FAILED = "Signature validation failed: ";
+    public static final String CALLBACK_BODY_TOO_LARGE = "ECS callback body too large.";
+    public static final String DUPLICATE_CALLBACK = "Duplicate ECS callback ignored.";
+    public static final String CALLBACK_IN_PROGRESS = "Same ECS callback is still being processed; retry later.";
+    public static final String CALLBACK_CAPACITY_EXCEEDED = "Too many ECS callbacks in progress; retry later.";
     public static final String VIDEO_ID_MISMATCH = "Video ID mismatch between URL and payload.";
     public static final String VIDEO_PROCESSED_FORMAT = "Video %d processed successfully.";
     public static final String VIDEO_FAILED_FORMAT = "Video %d marked as FAILED.";
@@ -0,0 +1,29 @@
+package com.streaming.app.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the app's own background executors, honouring spring.threads.virtual.enabled.
+ */
+public final class ThreadFactories {
+    private ThreadFactories() {}
+
+    // Platform threads are daemons so a stuck executor never blocks JVM shutdown
+    public static ThreadFactory named(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix + "-", 1).factory()
+                : Thread.ofPlatform().name(prefix + "-", 1).daemon(true).factory();
+    }
+
+    /**
+     * Executor for blocking I/O tasks. Virtual mode starts a thread per task, so callers must bound
+     * concurrency themselves (e.g. with a Semaphore); platform mode uses a fixed pool of {@code poolSize}.
+     */
+    public static ExecutorService blockingExecutor(String prefix, int poolSize, boolean virtual) {
+        return virtual
+                ? Executors.newThreadPerTaskExecutor(named(prefix, true))
+                : Executors.newFixedThreadPool(poolSize, named(prefix, false));
+    }
+}
@@ -0,0 +1,30 @@
+package com.streaming.app;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// VIRTUAL_THREADS_ENABLED=true: the context starts and @Scheduled work runs on virtual threads
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+@ActiveProfiles("test")
+class VirtualThreadsContextTests {
+
+	@Autowired
+	private TaskScheduler taskScheduler;
+
+	@Test
+	void scheduledTasksRunOnVirtualThreads() throws Exception {
+		CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+		taskScheduler.schedule(() -> virtual.complete(Thread.currentThread().isVirtual()), Instant.now());
+		assertTrue(virtual.get(5, TimeUnit.SECONDS));
+	}
+
+}
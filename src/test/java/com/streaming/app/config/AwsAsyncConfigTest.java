@@ -0,0 +1,60 @@
+package com.streaming.app.config;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AwsAsyncConfigTest {
+
+    private AwsAsyncConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AwsAsyncConfig();
+        ReflectionTestUtils.setField(config, "eventLoopThreads", 2);
+        ReflectionTestUtils.setField(config, "maxConcurrency", 10);
+        ReflectionTestUtils.setField(config, "maxPendingAcquires", 10);
+        ReflectionTestUtils.setField(config, "connectionTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(config, "acquireTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(config, "completionThreads", 1);
+        config.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        config.shutdown();
+    }
+
+    private static EventLoopGroup eventLoopGroup(SdkAsyncHttpClient client) {
+        SdkEventLoopGroup group = (SdkEventLoopGroup) ReflectionTestUtils.getField(client, "sdkEventLoopGroup");
+        return group.eventLoopGroup();
+    }
+
+    @Test
+    void closingTheClientShutsDownItsEventLoop() {
+        SdkAsyncHttpClient client = config.awsAsyncHttpClient();
+        EventLoopGroup group = eventLoopGroup(client);
+        assertFalse(group.isShuttingDown());
+
+        client.close();
+
+        assertTrue(group.isShuttingDown());
+    }
+
+    @Test
+    void eventLoopThreadsAreConfigurable() {
+        try (SdkAsyncHttpClient client = config.awsAsyncHttpClient()) {
+            assertEquals(2, ((MultithreadEventLoopGroup) eventLoopGroup(client)).executorCount());
+        }
+    }
+}
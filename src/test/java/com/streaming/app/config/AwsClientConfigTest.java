@@ -0,0 +1,33 @@
+package com.streaming.app.config;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AwsClientConfigTest {
+
+    @Test
+    void explicitSqsRegionWins() {
+        assertEquals(Region.EU_WEST_1, AwsClientConfig.sqsRegion("eu-west-1",
+                "https://sqs.us-west-2.amazonaws.com/123456789012/videos", "us-east-1"));
+    }
+
+    @Test
+    void regionIsTakenFromTheQueueUrl() {
+        assertEquals(Region.US_WEST_2, AwsClientConfig.sqsRegion("",
+                "https://sqs.us-west-2.amazonaws.com/123456789012/videos", "us-east-1"));
+        assertEquals(Region.CN_NORTH_1, AwsClientConfig.sqsRegion(null,
+                "https://sqs.cn-north-1.amazonaws.com.cn/123456789012/videos", "us-east-1"));
+    }
+
+    @Test
+    void otherQueueUrlsFallBackToTheDefaultRegion() {
+        // Legacy endpoint, a local emulator and no queue at all
+        assertEquals(Region.AP_SOUTH_1, AwsClientConfig.sqsRegion(null,
+                "https://queue.amazonaws.com/123456789012/videos", "ap-south-1"));
+        assertEquals(Region.AP_SOUTH_1, AwsClientConfig.sqsRegion(null,
+                "http://localhost:4566/000000000000/videos", "ap-south-1"));
+        assertEquals(Region.AP_SOUTH_1, AwsClientConfig.sqsRegion(" ", " ", "ap-south-1"));
+    }
+}
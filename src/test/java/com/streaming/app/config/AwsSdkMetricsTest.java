@@ -0,0 +1,101 @@
+package com.streaming.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AwsSdkMetricsTest {
+
+    private MeterRegistry registry;
+    private AwsSdkMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new AwsSdkMetrics(registry);
+    }
+
+    // Mirrors the SDK's tree: ApiCall -> ApiCallAttempt -> HttpClient
+    private MetricCollector call(String operation, boolean ok, int retries) {
+        MetricCollector call = MetricCollector.create("ApiCall");
+        call.reportMetric(CoreMetric.SERVICE_ID, "S3");
+        call.reportMetric(CoreMetric.OPERATION_NAME, operation);
+        call.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(120));
+        call.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, ok);
+        call.reportMetric(CoreMetric.RETRY_COUNT, retries);
+        return call;
+    }
+
+    private static void http(MetricCollector attempt, int leased, int available) {
+        MetricCollector http = attempt.createChild("HttpClient");
+        http.reportMetric(HttpMetric.HTTP_CLIENT_NAME, "Apache");
+        http.reportMetric(HttpMetric.LEASED_CONCURRENCY, leased);
+        http.reportMetric(HttpMetric.AVAILABLE_CONCURRENCY, available);
+        http.reportMetric(HttpMetric.MAX_CONCURRENCY, 128);
+        http.reportMetric(HttpMetric.PENDING_CONCURRENCY_ACQUIRES, 0);
+        http.reportMetric(HttpMetric.CONCURRENCY_ACQUIRE_DURATION, Duration.ofMillis(3));
+    }
+
+    private double pool(String state) {
+        return registry.get("aws.http.pool.connections").tags("client", "Apache", "state", state).gauge().value();
+    }
+
+    @Test
+    void successfulCallIsTimedWithoutRetries() {
+        MetricCollector call = call("GetObject", true, 0);
+        http(call.createChild("ApiCallAttempt"), 5, 10);
+
+        metrics.publish(call.collect());
+
+        Timer timer = registry.get("aws.api.call")
+                .tags("service", "S3", "operation", "GetObject", "outcome", "ok").timer();
+        assertEquals(1, timer.count());
+        assertEquals(120, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertNull(registry.find("aws.api.retries").counter());
+        assertNull(registry.find("aws.api.attempt.errors").counter());
+    }
+
+    @Test
+    void retriedCallCountsRetriesAndAttemptErrors() {
+        MetricCollector call = call("PutObject", false, 2);
+        for (int i = 0; i < 3; i++) {
+            MetricCollector attempt = call.createChild("ApiCallAttempt");
+            attempt.reportMetric(CoreMetric.ERROR_TYPE, i == 0 ? "ConfiguredTimeout" : "Throttling");
+        }
+
+        metrics.publish(call.collect());
+
+        assertEquals(1, registry.get("aws.api.call").tags("outcome", "error").timer().count());
+        assertEquals(2, registry.get("aws.api.retries").tags("operation", "PutObject").counter().count());
+        assertEquals(1, registry.get("aws.api.attempt.errors").tags("type", "ConfiguredTimeout").counter().count());
+        assertEquals(2, registry.get("aws.api.attempt.errors").tags("type", "Throttling").counter().count());
+    }
+
+    @Test
+    void poolGaugesFollowTheLatestRequest() {
+        MetricCollector first = call("GetObject", true, 0);
+        http(first.createChild("ApiCallAttempt"), 5, 10);
+        metrics.publish(first.collect());
+
+        MetricCollector second = call("GetObject", true, 0);
+        http(second.createChild("ApiCallAttempt"), 7, 2);
+        metrics.publish(second.collect());
+
+        assertEquals(7, pool("leased"));
+        assertEquals(2, pool("available"));
+        assertEquals(128, pool("max"));
+        assertEquals(0, pool("pending"));
+        assertEquals(2, registry.get("aws.http.pool.acquire").tags("client", "Apache").timer().count());
+    }
+}
@@ -0,0 +1,225 @@
+package com.streaming.app.controller;
+
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import com.streaming.app.service.S3Service;
+import com.streaming.app.service.VideoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VideoUploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @MockitoBean
+    private S3Service s3Service;
+
+    @MockitoSpyBean
+    private VideoService videoService;
+
+    // Stands in for the SDK's aws-async-completion pool
+    private final ExecutorService completionPool =
+            Executors.newSingleThreadExecutor(task -> new Thread(task, "aws-async-completion-test"));
+
+    @BeforeEach
+    void setUp() {
+        videoRepository.deleteAll();
+        when(s3Service.generateRawVideoKey(anyLong(), anyString()))
+                .thenAnswer(call -> "raw-videos/" + call.getArgument(0) + "/" + call.getArgument(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        completionPool.shutdownNow();
+    }
+
+    private Video uploaded() {
+        return videoService.saveUploadedVideo("big.mp4", "video/mp4", "tenant-1");
+    }
+
+    private VideoStatus statusOf(Long id) {
+        return videoRepository.findById(id).orElseThrow().getStatus();
+    }
+
+    private static S3Exception s3Error(int status, String code) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(status)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).build())
+                .build();
+    }
+
+    private MvcResult async(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn();
+    }
+
+    @Test
+    void createStartsAnUploadForANewVideo() throws Exception {
+        when(s3Service.createMultipartUpload(anyString(), eq("video/mp4"))).thenReturn("u-1");
+
+        mockMvc.perform(post("/api/video/multipart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\":\"big.mp4\",\"contentType\":\"video/mp4\",\"tenantId\":\"t-1\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uploadId").value("u-1"))
+                .andExpect(jsonPath("$.s3key").exists());
+
+        Video video = videoRepository.findAll().get(0);
+        assertEquals(VideoStatus.UPLOADED, video.getStatus());
+        verify(s3Service).createMultipartUpload(video.getS3Key(), "video/mp4");
+    }
+
+    @Test
+    void failedCreateLeavesTheVideoFailed() throws Exception {
+        when(s3Service.createMultipartUpload(anyString(), anyString())).thenThrow(s3Error(503, "SlowDown"));
+
+        mockMvc.perform(post("/api/video/multipart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\":\"big.mp4\",\"contentType\":\"video/mp4\"}"))
+                .andExpect(status().isInternalServerError());
+
+        assertEquals(VideoStatus.FAILED, videoRepository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    void partUrlsAreSignedInOneBatch() throws Exception {
+        Video video = uploaded();
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        urls.put(1, "https://s3/part-1");
+        urls.put(2, "https://s3/part-2");
+        when(s3Service.generatePresignedPartUrls(video.getS3Key(), "u-1", List.of(1, 2))).thenReturn(urls);
+
+        mockMvc.perform(post("/api/video/multipart/{id}/parts", video.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"uploadId\":\"u-1\",\"partNumbers\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.urls.1").value("https://s3/part-1"))
+                .andExpect(jsonPath("$.urls.2").value("https://s3/part-2"));
+    }
+
+    @Test
+    void invalidPartRequestsAreRejectedBeforeSigning() throws Exception {
+        Video video = uploaded();
+        String tooMany = "[" + String.join(",", IntStream.rangeClosed(1, 101)
+                .mapToObj(Integer::toString).toList()) + "]";
+
+        for (String parts : List.of("[0]", "[10001]", tooMany, "[]")) {
+            mockMvc.perform(post("/api/video/multipart/{id}/parts", video.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"uploadId\":\"u-1\",\"partNumbers\":" + parts + "}"))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(post("/api/video/multipart/{id}/parts", video.getId() + 1000)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"uploadId\":\"u-1\",\"partNumbers\":[1]}"))
+                .andExpect(status().isNotFound());
+        verify(s3Service, never()).generatePresignedPartUrls(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    void completePassesTheClientsParts() throws Exception {
+        Video video = uploaded();
+        when(s3Service.completeMultipartUploadAsync(eq(video.getS3Key()), eq("u-1"), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult result = async(post("/api/video/multipart/{id}/complete", video.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"uploadId\":\"u-1\",\"parts\":[{\"partNumber\":2,\"etag\":\"\\\"e2\\\"\"},"
+                        + "{\"partNumber\":1,\"etag\":\"\\\"e1\\\"\"}]}"));
+
+        assertEquals(200, result.getResponse().getStatus());
+        verify(s3Service).completeMultipartUploadAsync(video.getS3Key(), "u-1", List.of(
+                CompletedPart.builder().partNumber(2).eTag("\"e2\"").build(),
+                CompletedPart.builder().partNumber(1).eTag("\"e1\"").build()));
+    }
+
+    @Test
+    void completeWithBadPartsIsAClientError() throws Exception {
+        Video video = uploaded();
+        when(s3Service.completeMultipartUploadAsync(anyString(), anyString(), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(s3Error(400, "InvalidPart")));
+        when(s3Service.abortMultipartUploadAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(s3Error(404, "NoSuchUpload")));
+
+        MvcResult complete = async(post("/api/video/multipart/{id}/complete", video.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"uploadId\":\"u-1\"}"));
+        assertEquals(400, complete.getResponse().getStatus());
+
+        MvcResult abort = async(delete("/api/video/multipart/{id}", video.getId()).param("uploadId", "u-1"));
+        assertEquals(404, abort.getResponse().getStatus());
+        // Nothing was aborted, so the video keeps its state
+        assertEquals(VideoStatus.UPLOADED, statusOf(video.getId()));
+    }
+
+    @Test
+    void abortMarksTheVideoFailedOffTheCompletionPool() throws Exception {
+        Video video = uploaded();
+        CompletableFuture<Void> aborted = new CompletableFuture<>();
+        when(s3Service.abortMultipartUploadAsync(any(), any())).thenReturn(aborted);
+        AtomicReference<String> markedOn = new AtomicReference<>();
+        doAnswer(call -> {
+            markedOn.set(Thread.currentThread().getName());
+            return call.callRealMethod();
+        }).when(videoService).markAsFailed(video.getId());
+
+        MvcResult started = mockMvc.perform(delete("/api/video/multipart/{id}", video.getId()).param("uploadId", "u-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        completionPool.submit(() -> aborted.complete(null)).get();
+
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isNoContent());
+        assertFalse(markedOn.get().startsWith("aws-async-completion"), markedOn.get());
+        assertEquals(VideoStatus.FAILED, videoRepository.findById(video.getId()).orElseThrow().getStatus());
+    }
+}
@@ -0,0 +1,115 @@
+package com.streaming.app.security;
+
+import com.streaming.app.security.CallbackReplayCache.Claim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CallbackReplayCacheTest {
+
+    private CallbackReplayCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CallbackReplayCache();
+        ReflectionTestUtils.setField(cache, "allowedSkewMs", 300_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    @Test
+    void duplicateIsInFlightUntilCompleted() {
+        String key = CallbackReplayCache.key("POST", "/api/videos/1/processed", "abc");
+        long now = System.currentTimeMillis();
+
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key, now));
+        assertEquals(Claim.IN_FLIGHT, cache.tryAcquire(key, now));
+
+        cache.complete(key);
+        assertEquals(Claim.COMPLETED, cache.tryAcquire(key, now));
+        assertEquals(2, cache.stats().duplicates());
+    }
+
+    @Test
+    void releasedCallbackCanBeRetried() {
+        String key = CallbackReplayCache.key("POST", "/api/videos/1/processed", "abc");
+        long now = System.currentTimeMillis();
+
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key, now));
+        cache.release(key);
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key, now));
+    }
+
+    @Test
+    void expiredEntryIsReclaimed() {
+        String key = CallbackReplayCache.key("POST", "/api/videos/1/processed", "abc");
+        long longAgo = System.currentTimeMillis() - 600_000;
+
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key, longAgo));
+        cache.complete(key);
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key, longAgo));
+    }
+
+    @Test
+    void keyCoversMethodAndUri() {
+        // Empty-body callbacks with the same timestamp share a signature, so the URI must tell them apart
+        assertNotEquals(CallbackReplayCache.key("POST", "/api/videos/1/failed", "abc"),
+                CallbackReplayCache.key("POST", "/api/videos/2/failed", "abc"));
+        assertEquals(CallbackReplayCache.key("post", "/api/videos/1/failed", "ABC"),
+                CallbackReplayCache.key("POST", "/api/videos/1/failed", "abc"));
+    }
+
+    private static String key(String id) {
+        return CallbackReplayCache.key("POST", "/api/videos/" + id + "/processed", "sig");
+    }
+
+    @Test
+    void completedEntriesAreEvictedOldestCompletionFirst() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 3);
+        long now = System.currentTimeMillis();
+        for (String id : new String[] {"a", "b", "c"}) {
+            cache.tryAcquire(key(id), now);
+        }
+        cache.complete(key("b"));
+        cache.complete(key("a"));
+        cache.complete(key("c"));
+
+        // b completed first, so it makes room for d; a is next in line
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key("d"), now));
+        assertEquals(Claim.COMPLETED, cache.tryAcquire(key("a"), now));
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key("b"), now));
+        assertEquals(2, cache.stats().evictions());
+        assertEquals(3, cache.stats().size());
+    }
+
+    @Test
+    void inFlightClaimsAreNeverEvicted() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        long now = System.currentTimeMillis();
+        cache.tryAcquire(key("a"), now);
+        cache.tryAcquire(key("b"), now);
+
+        // Full of in-flight claims: new callbacks are turned away, duplicates are still recognised
+        assertEquals(Claim.REJECTED, cache.tryAcquire(key("c"), now));
+        assertEquals(Claim.IN_FLIGHT, cache.tryAcquire(key("a"), now));
+        assertEquals(1, cache.stats().rejections());
+        assertEquals(0, cache.stats().evictions());
+
+        cache.complete(key("a"));
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key("c"), now));
+        assertEquals(Claim.IN_FLIGHT, cache.tryAcquire(key("b"), now));
+    }
+
+    @Test
+    void releasedClaimFreesItsSlot() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 1);
+        long now = System.currentTimeMillis();
+        cache.tryAcquire(key("a"), now);
+        assertEquals(Claim.REJECTED, cache.tryAcquire(key("b"), now));
+
+        cache.release(key("a"));
+        assertEquals(Claim.ACQUIRED, cache.tryAcquire(key("b"), now));
+    }
+}
@@ -0,0 +1,103 @@
+package com.streaming.app.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-callback cost of signature verification, current validator vs. the previous
+ * getInstance/init + String.format implementation.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.streaming.app.security.EcsCallbackSignatureValidatorBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EcsCallbackSignatureValidatorBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+
+    @Param({"256", "16384"})
+    private int bodySize;
+
+    private EcsCallbackSignatureValidator validator;
+    private byte[] body;
+    private String timestamp;
+    private String signature;
+
+    @Setup
+    public void setUp() {
+        // Keep the validator's console logging out of the measurement
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        validator = new EcsCallbackSignatureValidator();
+        ReflectionTestUtils.setField(validator, "secret", SECRET);
+        ReflectionTestUtils.setField(validator, "allowedSkewMs", Long.MAX_VALUE / 2);
+        validator.init();
+
+        body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'a');
+        timestamp = Long.toString(System.currentTimeMillis());
+        signature = validator.sign(timestamp, body);
+    }
+
+    @Benchmark
+    public void current() {
+        validator.verify(body, signature, timestamp);
+    }
+
+    @Benchmark
+    public boolean legacy() throws Exception {
+        // Previous implementation: fresh keyed Mac per call, String concat, String.format hex, char compare
+        String data = timestamp + "." + new String(body, StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : raw) {
+            hex.append(String.format("%02x", b));
+        }
+        String expected = hex.toString();
+
+        if (expected.length() != signature.length()) return false;
+        int result = 0;
+        for (int i = 0; i < expected.length(); i++) {
+            result |= expected.charAt(i) ^ signature.charAt(i);
+        }
+        return result == 0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EcsCallbackSignatureValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,179 @@
+package com.streaming.app.security;
+
+import com.streaming.app.util.ResponseMessages;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EcsSignatureFilterTest {
+
+    private static final String PATH = "/api/videos/7/completed";
+    private static final byte[] BODY = "{\"videoId\":7}".getBytes(StandardCharsets.UTF_8);
+
+    private EcsCallbackSignatureValidator validator;
+    private CallbackReplayCache replayCache;
+    private EcsSignatureFilter filter;
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        validator = new EcsCallbackSignatureValidator();
+        ReflectionTestUtils.setField(validator, "secret", "test-secret");
+        ReflectionTestUtils.setField(validator, "allowedSkewMs", 300_000L);
+        validator.init();
+
+        replayCache = new CallbackReplayCache();
+        ReflectionTestUtils.setField(replayCache, "allowedSkewMs", 300_000L);
+        ReflectionTestUtils.setField(replayCache, "maxEntries", 1000);
+
+        filter = new EcsSignatureFilter(validator, replayCache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 1024);
+    }
+
+    private MockHttpServletRequest signed(String timestamp, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.setContent(body);
+        request.addHeader("X-ECS-Timestamp", timestamp);
+        request.addHeader("X-ECS-Signature", validator.sign(timestamp, body));
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, FilterChain chain)
+            throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private final FilterChain ok = (req, res) -> handled.incrementAndGet();
+
+    @Test
+    void validSignatureReachesHandlerWithBody() throws Exception {
+        AtomicReference<byte[]> seen = new AtomicReference<>();
+        MockHttpServletResponse response = run(signed(now(), BODY),
+                (req, res) -> seen.set(req.getInputStream().readAllBytes()));
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertArrayEquals(BODY, seen.get());
+    }
+
+    @Test
+    void tamperedBodyIsRejected() throws Exception {
+        MockHttpServletRequest request = signed(now(), BODY);
+        request.setContent("{\"videoId\":8}".getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse response = run(request, ok);
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+        assertEquals(ResponseMessages.INVALID_SIGNATURE, response.getContentAsString());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void staleTimestampIsRejected() throws Exception {
+        String stale = Long.toString(System.currentTimeMillis() - 600_000);
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, run(signed(stale, BODY), ok).getStatus());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void missingHeadersAreRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.setContent(BODY);
+
+        MockHttpServletResponse response = run(request, ok);
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+        assertEquals(ResponseMessages.MISSING_SIGNATURE_HEADERS, response.getContentAsString());
+    }
+
+    @Test
+    void oversizedBodyIsRejected() throws Exception {
+        MockHttpServletResponse response = run(signed(now(), new byte[2048]), ok);
+        assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void replayAfterSuccessIsAcknowledgedWithoutReprocessing() throws Exception {
+        String timestamp = now();
+        run(signed(timestamp, BODY), ok);
+
+        MockHttpServletResponse replay = run(signed(timestamp, BODY), ok);
+        assertEquals(HttpServletResponse.SC_OK, replay.getStatus());
+        assertEquals(ResponseMessages.DUPLICATE_CALLBACK, replay.getContentAsString());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void duplicateWhileFirstIsInFlightGetsConflict() throws Exception {
+        String timestamp = now();
+        AtomicReference<MockHttpServletResponse> duplicate = new AtomicReference<>();
+        run(signed(timestamp, BODY), (req, res) -> duplicate.set(run(signed(timestamp, BODY), ok)));
+
+        assertEquals(HttpServletResponse.SC_CONFLICT, duplicate.get().getStatus());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void cacheFullOfInFlightCallbacksGetsServiceUnavailable() throws Exception {
+        ReflectionTestUtils.setField(replayCache, "maxEntries", 1);
+        String timestamp = now();
+        byte[] other = "{\"videoId\":8}".getBytes(StandardCharsets.UTF_8);
+        AtomicReference<MockHttpServletResponse> second = new AtomicReference<>();
+        run(signed(timestamp, BODY), (req, res) -> second.set(run(signed(timestamp, other), ok)));
+
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, second.get().getStatus());
+        assertEquals("1", second.get().getHeader("Retry-After"));
+        assertEquals(0, handled.get());
+
+        // Once the first one is done its slot can be reused
+        assertEquals(HttpServletResponse.SC_OK, run(signed(timestamp, other), ok).getStatus());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void failedCallbackStaysRetryable() throws Exception {
+        String timestamp = now();
+        run(signed(timestamp, BODY), (req, res) -> ((HttpServletResponse) res).setStatus(500));
+
+        MockHttpServletResponse retry = run(signed(timestamp, BODY), ok);
+        assertEquals(HttpServletResponse.SC_OK, retry.getStatus());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void sameSignatureOnAnotherEndpointIsNotAReplay() throws Exception {
+        String timestamp = now();
+        byte[] empty = new byte[0];
+        run(signed(timestamp, empty), ok);
+
+        MockHttpServletRequest other = signed(timestamp, empty);
+        other.setRequestURI("/api/videos/8/completed");
+        assertEquals(HttpServletResponse.SC_OK, run(other, ok).getStatus());
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void otherRequestsBypassValidation() throws Exception {
+        MockHttpServletResponse response = run(new MockHttpServletRequest("GET", "/api/videos/7"), ok);
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals(1, handled.get());
+    }
+
+    private static String now() {
+        return Long.toString(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,211 @@
+package com.streaming.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiskSegmentCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private S3Service s3Service;
+    private DiskSegmentCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3Service = mock(S3Service.class);
+        cache = new DiskSegmentCache(s3Service);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "directory", directory);
+        ReflectionTestUtils.setField(cache, "maxBytes", 100L);
+        ReflectionTestUtils.setField(cache, "maxObjectBytes", 50L);
+        ReflectionTestUtils.setField(cache, "revalidateSeconds", 3600L);
+        ReflectionTestUtils.setField(cache, "fillConcurrency", 1);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private void s3Has(String key, byte[] body, Long contentLength, String eTag) {
+        s3Has(key, new ByteArrayInputStream(body), contentLength, eTag);
+    }
+
+    private void s3Has(String key, InputStream body, Long contentLength, String eTag) {
+        GetObjectResponse meta = GetObjectResponse.builder()
+                .contentLength(contentLength)
+                .eTag(eTag)
+                .contentType("video/mp4")
+                .build();
+        when(s3Service.getProcessedObject(eq(key), isNull(), isNull()))
+                .thenAnswer(call -> new ResponseInputStream<>(meta, AbortableInputStream.create(body)));
+    }
+
+    private List<String> files() throws IOException {
+        try (var stream = Files.list(directory)) {
+            return stream.map(p -> p.getFileName().toString()).toList();
+        }
+    }
+
+    @Test
+    void fillIsServedFromDisk() throws Exception {
+        byte[] body = bytes(40);
+        s3Has("a.mp4", body, 40L, "\"e1\"");
+
+        DiskSegmentCache.CachedObject cached = cache.fill("a.mp4").get().orElseThrow();
+        assertEquals(40, cached.size());
+        assertTrue(cache.get("a.mp4").isPresent());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(cached, 10, 19, out, new byte[4]);
+        assertArrayEquals(Arrays.copyOfRange(body, 10, 20), out.toByteArray());
+    }
+
+    @Test
+    void oversizedObjectWithoutContentLengthIsNotCached() throws Exception {
+        s3Has("big.mp4", bytes(80), null, "\"e1\"");
+
+        assertTrue(cache.fill("big.mp4").get().isEmpty());
+        assertTrue(cache.get("big.mp4").isEmpty());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void failedFillLeavesNoPartFile() throws Exception {
+        InputStream broken = new InputStream() {
+            private int served;
+
+            @Override
+            public int read() throws IOException {
+                if (served++ < 10) {
+                    return 1;
+                }
+                throw new IOException("connection reset");
+            }
+        };
+        s3Has("a.mp4", broken, 40L, "\"e1\"");
+
+        assertTrue(cache.fill("a.mp4").get().isEmpty());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void maxObjectBytesAboveOneMappingIsRejectedAtStartup() {
+        DiskSegmentCache misconfigured = new DiskSegmentCache(s3Service);
+        ReflectionTestUtils.setField(misconfigured, "enabled", true);
+        ReflectionTestUtils.setField(misconfigured, "directory", directory);
+        ReflectionTestUtils.setField(misconfigured, "maxObjectBytes", Integer.MAX_VALUE + 1L);
+
+        assertThrows(IllegalStateException.class, misconfigured::init);
+    }
+
+    @Test
+    void leastRecentlyUsedObjectIsEvictedAndDeleted() throws Exception {
+        for (String key : List.of("a.mp4", "b.mp4", "c.mp4")) {
+            s3Has(key, bytes(40), 40L, "\"e1\"");
+        }
+        cache.fill("a.mp4").get();
+        cache.fill("b.mp4").get();
+        cache.get("a.mp4");                 // b is now the eldest
+        cache.fill("c.mp4").get();
+
+        assertTrue(cache.get("a.mp4").isPresent());
+        assertTrue(cache.get("b.mp4").isEmpty());
+        assertTrue(cache.get("c.mp4").isPresent());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(80, cache.stats().bytes());
+        assertEquals(2, files().size());
+    }
+
+    @Test
+    void changedETagDropsTheCopy() throws Exception {
+        s3Has("a.mp4", bytes(40), 40L, "\"e1\"");
+        cache.fill("a.mp4").get();
+        ReflectionTestUtils.setField(cache, "revalidateSeconds", 0L);
+
+        when(s3Service.headProcessedObject("a.mp4")).thenReturn(HeadObjectResponse.builder().eTag("\"e1\"").build());
+        assertTrue(cache.get("a.mp4").isPresent());
+
+        // Re-transcoded under the same key
+        when(s3Service.headProcessedObject("a.mp4")).thenReturn(HeadObjectResponse.builder().eTag("\"e2\"").build());
+        assertTrue(cache.get("a.mp4").isEmpty());
+        assertEquals(0, cache.stats().bytes());
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void revalidationIsSkippedWithinThePeriodAndOnS3Errors() throws Exception {
+        s3Has("a.mp4", bytes(40), 40L, "\"e1\"");
+        cache.fill("a.mp4").get();
+
+        assertTrue(cache.get("a.mp4").isPresent());
+        verify(s3Service, never()).headProcessedObject("a.mp4");
+
+        ReflectionTestUtils.setField(cache, "revalidateSeconds", 0L);
+        when(s3Service.headProcessedObject("a.mp4"))
+                .thenThrow(S3Exception.builder().statusCode(503).message("SlowDown").build());
+        assertTrue(cache.get("a.mp4").isPresent());
+
+        doThrow(S3Exception.builder().statusCode(404).message("Not Found").build())
+                .when(s3Service).headProcessedObject("a.mp4");
+        assertEquals(Optional.empty(), cache.get("a.mp4"));
+    }
+
+    @Test
+    void ownLeftoverFilesAreRemovedAtStartup() throws IOException {
+        Path leftover = Files.createFile(directory.resolve("segcache-" + "0".repeat(64) + ".part"));
+        Path foreign = Files.createFile(directory.resolve("unrelated.txt"));
+
+        DiskSegmentCache restarted = new DiskSegmentCache(s3Service);
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        ReflectionTestUtils.setField(restarted, "directory", directory);
+        ReflectionTestUtils.setField(restarted, "maxObjectBytes", 50L);
+        ReflectionTestUtils.setField(restarted, "fillConcurrency", 1);
+        restarted.init();
+        restarted.shutdown();
+
+        assertFalse(Files.exists(leftover));
+        assertTrue(Files.exists(foreign));
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
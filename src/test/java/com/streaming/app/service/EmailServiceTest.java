@@ -0,0 +1,43 @@
+package com.streaming.app.service;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailServiceTest {
+
+    @Test
+    void rejectedRecipientIsNotRetried() throws Exception {
+        InternetAddress bad = new InternetAddress("nobody@example.invalid");
+        SendFailedException invalid = new SendFailedException("Invalid Addresses", null,
+                new Address[0], new Address[0], new Address[]{bad});
+        assertFalse(EmailService.isTransient(invalid));
+        assertFalse(EmailService.isTransient(new SMTPAddressFailedException(bad, "RCPT TO", 550, "no such user")));
+        assertFalse(EmailService.isTransient(new AddressException("Illegal address")));
+    }
+
+    @Test
+    void permanentSmtpReplyIsNotRetried() {
+        assertFalse(EmailService.isTransient(
+                new SMTPSendFailedException("DATA", 554, "rejected", null, null, null, null)));
+        assertFalse(EmailService.isTransient(new MailAuthenticationException("bad credentials")));
+    }
+
+    @Test
+    void temporaryFailuresAreRetried() throws Exception {
+        InternetAddress address = new InternetAddress("someone@example.com");
+        assertTrue(EmailService.isTransient(new SMTPAddressFailedException(address, "RCPT TO", 451, "try later")));
+        assertTrue(EmailService.isTransient(new MessagingException("connection reset")));
+        assertTrue(EmailService.isTransient(new MailSendException("Mail server connection failed")));
+    }
+}
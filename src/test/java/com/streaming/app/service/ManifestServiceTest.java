@@ -0,0 +1,224 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ManifestServiceTest {
+
+    private S3Service s3Service;
+    private ManifestService manifestService;
+
+    @BeforeEach
+    void setUp() {
+        s3Service = mock(S3Service.class);
+        when(s3Service.generatePresignedDownloadUrl(anyString(), anyInt()))
+                .thenAnswer(call -> "https://cdn.example/" + call.getArgument(0) + "?sig=1");
+        manifestService = new ManifestService(s3Service);
+        ReflectionTestUtils.setField(manifestService, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(manifestService, "maxEntries", 100);
+        ReflectionTestUtils.setField(manifestService, "probeBytes", 4096);
+    }
+
+    private static VideoVariant segmented(String quality, Long bandwidth, int segments, double duration) {
+        VideoVariant variant = new VideoVariant(quality, "processed-videos/1/" + quality + ".mp4", "video/mp4");
+        variant.setBandwidth(bandwidth);
+        variant.setWidth(1280);
+        variant.setHeight(720);
+        variant.setCodecs("avc1.64001f,mp4a.40.2");
+        variant.setDurationSeconds(duration);
+        variant.setInitSegmentKey("processed-videos/1/" + quality + "/init.mp4");
+        variant.setSegmentKeyTemplate("processed-videos/1/" + quality + "/seg-{n}.m4s");
+        variant.setSegmentCount(segments);
+        variant.setSegmentDurationSeconds(4.0);
+        return variant;
+    }
+
+    private static Video video(long id, VideoVariant... variants) {
+        Video video = new Video();
+        video.setId(id);
+        video.setVariants(new ArrayList<>(List.of(variants)));
+        return video;
+    }
+
+    @Test
+    void masterPlaylistListsSegmentedVariantsHighestBitrateFirst() {
+        Video video = video(1, segmented("480p", 1_400_000L, 3, 10.0), segmented("720p", null, 3, 10.0),
+                new VideoVariant("thumb", "processed-videos/1/thumb.jpg", "image/jpeg"));
+
+        String master = manifestService.hlsMasterPlaylist(video).orElseThrow();
+
+        assertTrue(master.startsWith("#EXTM3U\n"));
+        // 720p has no reported bandwidth and falls back to its default of 2.8 Mbps
+        int hd = master.indexOf("BANDWIDTH=2800000,RESOLUTION=1280x720,CODECS=\"avc1.64001f,mp4a.40.2\"\nhls/720p.m3u8");
+        int sd = master.indexOf("BANDWIDTH=1400000");
+        assertTrue(hd >= 0 && sd > hd, master);
+        assertFalse(master.contains("thumb"));
+    }
+
+    @Test
+    void mediaPlaylistExpandsSegmentsWithShorterLastSegment() {
+        Video video = video(2, segmented("720p", 2_800_000L, 3, 10.0));
+
+        String playlist = manifestService.hlsMediaPlaylist(video, "720p").orElseThrow();
+
+        assertTrue(playlist.contains("#EXT-X-TARGETDURATION:4\n"));
+        assertTrue(playlist.contains("#EXT-X-MAP:URI=\"https://cdn.example/processed-videos/1/720p/init.mp4?sig=1\""));
+        assertTrue(playlist.contains("#EXTINF:4.000,\nhttps://cdn.example/processed-videos/1/720p/seg-0.m4s?sig=1\n"));
+        assertTrue(playlist.contains("#EXTINF:2.000,\nhttps://cdn.example/processed-videos/1/720p/seg-2.m4s?sig=1\n"));
+        assertTrue(playlist.endsWith("#EXT-X-ENDLIST\n"));
+        assertTrue(manifestService.hlsMediaPlaylist(video, "1080p").isEmpty());
+    }
+
+    @Test
+    void dashManifestUsesSegmentListAndEscapesUrls() {
+        Video video = video(3, segmented("720p", 2_800_000L, 2, 7.5));
+
+        String mpd = manifestService.dashManifest(video).orElseThrow();
+
+        assertTrue(mpd.contains("mediaPresentationDuration=\"PT7.500S\""));
+        assertTrue(mpd.contains("<Representation id=\"720p\" bandwidth=\"2800000\" width=\"1280\" height=\"720\""));
+        assertTrue(mpd.contains("<SegmentList duration=\"4000\" timescale=\"1000\">"));
+        assertTrue(mpd.contains("media=\"https://cdn.example/processed-videos/1/720p/seg-1.m4s?sig=1\""));
+    }
+
+    @Test
+    void progressiveOnlyVideoHasNoManifest() {
+        Video video = video(4, new VideoVariant("720p", "processed-videos/4/720p.mp4", "video/mp4"));
+        storeHead("processed-videos/4/720p.mp4", concat(box("ftyp", new byte[8]), box("moov", new byte[40]),
+                box("mdat", new byte[64])));
+
+        assertTrue(manifestService.hlsMasterPlaylist(video).isEmpty());
+        assertTrue(manifestService.dashManifest(video).isEmpty());
+        assertTrue(manifestService.hlsMediaPlaylist(video, "720p").isEmpty());
+        // The verdict is remembered, the object is only probed once
+        verify(s3Service, times(1)).getProcessedObjectBytes(eq("processed-videos/4/720p.mp4"), eq("bytes=0-4095"));
+    }
+
+    // --- Single-file fragmented MP4 with a global sidx ---
+
+    private static final String INDEXED_KEY = "processed-videos/6/720p.mp4";
+
+    // ftyp (16) + moov (48) + sidx v0 with two 2s fragments at timescale 1000 (56) + the fragments
+    private static byte[] indexedMp4() {
+        ByteBuffer sidx = ByteBuffer.allocate(4 + 4 + 4 + 8 + 4 + 2 * 12);
+        sidx.putInt(0);                 // version 0, flags
+        sidx.putInt(1);                 // reference_ID
+        sidx.putInt(1000);              // timescale
+        sidx.putInt(0).putInt(0);       // earliest_presentation_time, first_offset
+        sidx.putShort((short) 0).putShort((short) 2);
+        sidx.putInt(300).putInt(2000).putInt(0x90000000);
+        sidx.putInt(200).putInt(1500).putInt(0x90000000);
+        return concat(box("ftyp", new byte[8]), box("moov", new byte[40]), box("sidx", sidx.array()),
+                box("moof", new byte[16]));
+    }
+
+    private void storeHead(String key, byte[] head) {
+        when(s3Service.getProcessedObjectBytes(eq(key), anyString()))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), head));
+    }
+
+    @Test
+    void indexedMp4IsServedAsDashOnDemandSegmentBase() {
+        storeHead(INDEXED_KEY, indexedMp4());
+        Video video = video(6, new VideoVariant("720p", INDEXED_KEY, "video/mp4"));
+
+        String mpd = manifestService.dashManifest(video).orElseThrow();
+
+        assertTrue(mpd.contains("profiles=\"urn:mpeg:dash:profile:isoff-on-demand:2011\""), mpd);
+        assertTrue(mpd.contains("mediaPresentationDuration=\"PT3.500S\""), mpd);
+        assertTrue(mpd.contains("<BaseURL>https://cdn.example/" + INDEXED_KEY + "?sig=1</BaseURL>"), mpd);
+        assertTrue(mpd.contains("<SegmentBase indexRange=\"64-119\" timescale=\"1000\">"), mpd);
+        assertTrue(mpd.contains("<Initialization range=\"0-63\"/>"), mpd);
+        assertFalse(mpd.contains("SegmentList"));
+    }
+
+    @Test
+    void indexedMp4IsServedAsHlsByteRanges() {
+        storeHead(INDEXED_KEY, indexedMp4());
+        Video video = video(7, new VideoVariant("720p", INDEXED_KEY, "video/mp4"));
+
+        assertTrue(manifestService.hlsMasterPlaylist(video).orElseThrow().contains("hls/720p.m3u8"));
+        String playlist = manifestService.hlsMediaPlaylist(video, "720p").orElseThrow();
+
+        String url = "https://cdn.example/" + INDEXED_KEY + "?sig=1";
+        assertTrue(playlist.contains("#EXT-X-MAP:URI=\"" + url + "\",BYTERANGE=\"64@0\"\n"), playlist);
+        // Fragments start right after the sidx (byte 120)
+        assertTrue(playlist.contains("#EXTINF:2.000,\n#EXT-X-BYTERANGE:300@120\n" + url + "\n"), playlist);
+        assertTrue(playlist.contains("#EXTINF:1.500,\n#EXT-X-BYTERANGE:200@420\n" + url + "\n"), playlist);
+        assertTrue(playlist.contains("#EXT-X-TARGETDURATION:2\n"));
+    }
+
+    @Test
+    void failedProbeIsRetriedOnTheNextRequest() {
+        when(s3Service.getProcessedObjectBytes(eq(INDEXED_KEY), anyString()))
+                .thenThrow(new IllegalStateException("SlowDown"))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), indexedMp4()));
+        Video video = video(8, new VideoVariant("720p", INDEXED_KEY, "video/mp4"));
+
+        assertTrue(manifestService.dashManifest(video).isEmpty());
+        assertTrue(manifestService.dashManifest(video).isPresent());
+    }
+
+    @Test
+    void sidxParsingRejectsTruncatedAndNestedIndexes() {
+        byte[] full = indexedMp4();
+        assertTrue(Mp4SegmentIndex.parse(full).isPresent());
+        // Probe ended inside the sidx
+        assertTrue(Mp4SegmentIndex.parse(Arrays.copyOf(full, 100)).isEmpty());
+
+        byte[] nested = full.clone();
+        nested[64 + 8 + 24] |= (byte) 0x80;   // reference_type 1 on the first reference
+        assertTrue(Mp4SegmentIndex.parse(nested).isEmpty());
+    }
+
+    private static byte[] box(String type, byte[] payload) {
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(8 + payload.length)
+                .put(type.getBytes(StandardCharsets.US_ASCII))
+                .put(payload)
+                .array();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void manifestsAreCachedPerVideo() {
+        Video video = video(5, segmented("720p", 2_800_000L, 2, 8.0));
+
+        String first = manifestService.hlsMediaPlaylist(video, "720p").orElseThrow();
+        String second = manifestService.hlsMediaPlaylist(video, "720p").orElseThrow();
+
+        assertEquals(first, second);
+        // init segment + 2 media segments, presigned once
+        verify(s3Service, times(3)).generatePresignedDownloadUrl(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,85 @@
+package com.streaming.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MultipartUploadSweeperTest {
+
+    private S3Service s3Service;
+    private VideoService videoService;
+    private MultipartUploadSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        s3Service = mock(S3Service.class);
+        videoService = mock(VideoService.class);
+        sweeper = new MultipartUploadSweeper(s3Service, videoService);
+        ReflectionTestUtils.setField(sweeper, "staleAfterHours", 24L);
+    }
+
+    private static MultipartUpload upload(String key, String uploadId) {
+        return MultipartUpload.builder().key(key).uploadId(uploadId).initiated(Instant.now().minus(Duration.ofDays(2))).build();
+    }
+
+    @Test
+    void staleUploadsAreAbortedAndTheirVideosFailed() {
+        when(s3Service.listStaleMultipartUploads(any())).thenReturn(List.of(
+                upload("raw-videos/1/a.mp4", "u-1"),
+                upload("raw-videos/2/b.mp4", "u-2"),
+                upload("raw-videos/legacy-uuid.mp4", "u-3")));
+        when(s3Service.extractVideoIdFromRawKey("raw-videos/1/a.mp4")).thenReturn(Optional.of(1L));
+        when(s3Service.extractVideoIdFromRawKey("raw-videos/2/b.mp4")).thenReturn(Optional.of(2L));
+        when(s3Service.extractVideoIdFromRawKey("raw-videos/legacy-uuid.mp4")).thenReturn(Optional.empty());
+        // One abort fails; the rest of the sweep carries on and that video is left for the next run
+        doThrow(S3Exception.builder().statusCode(503).message("SlowDown").build())
+                .when(s3Service).abortMultipartUpload("raw-videos/2/b.mp4", "u-2");
+
+        sweeper.sweep();
+
+        verify(s3Service).abortMultipartUpload("raw-videos/1/a.mp4", "u-1");
+        verify(s3Service).abortMultipartUpload("raw-videos/legacy-uuid.mp4", "u-3");
+        verify(videoService).markAsFailed(1L);
+        verify(videoService, never()).markAsFailed(2L);
+    }
+
+    @Test
+    void cutoffIsStaleAfterHoursAgo() {
+        when(s3Service.listStaleMultipartUploads(any())).thenReturn(List.of());
+
+        Instant before = Instant.now().minus(Duration.ofHours(24));
+        sweeper.sweep();
+        Instant after = Instant.now().minus(Duration.ofHours(24));
+
+        verify(s3Service).listStaleMultipartUploads(argThat(cutoff ->
+                !cutoff.isBefore(before) && !cutoff.isAfter(after)));
+        verify(s3Service, never()).abortMultipartUpload(anyString(), anyString());
+    }
+
+    @Test
+    void listingFailureSkipsTheRun() {
+        when(s3Service.listStaleMultipartUploads(any())).thenThrow(new IllegalStateException("endpoint unreachable"));
+
+        sweeper.sweep();
+
+        verify(s3Service, never()).abortMultipartUpload(anyString(), anyString());
+        verify(videoService, never()).markAsFailed(anyLong());
+    }
+}
@@ -0,0 +1,93 @@
+package com.streaming.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PresignedUrlCacheTest {
+
+    private PresignedUrlCache cache;
+    private final AtomicInteger signings = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new PresignedUrlCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "minRemainingSeconds", 900L);
+    }
+
+    private Supplier<PresignedUrlCache.SignedUrl> signer(Instant credentialsExpireAt) {
+        return () -> new PresignedUrlCache.SignedUrl("https://s3/url-" + signings.incrementAndGet(), credentialsExpireAt);
+    }
+
+    @Test
+    void hitReturnsTheSameUrlWithoutSigning() {
+        String first = cache.get("bucket", "a.mp4", 3600, signer(null));
+        String second = cache.get("bucket", "a.mp4", 3600, signer(null));
+
+        assertEquals(first, second);
+        assertEquals(1, signings.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void differentKeyOrExpiryIsAMiss() {
+        cache.get("bucket", "a.mp4", 3600, signer(null));
+        cache.get("bucket", "b.mp4", 3600, signer(null));
+        cache.get("bucket", "a.mp4", 7200, signer(null));
+
+        assertEquals(3, signings.get());
+        assertEquals(0, cache.stats().hits());
+        assertEquals(3, cache.stats().size());
+    }
+
+    @Test
+    void expiryAtOrBelowTheFloorIsNeverCached() {
+        cache.get("bucket", "a.mp4", 900, signer(null));
+        cache.get("bucket", "a.mp4", 900, signer(null));
+
+        assertEquals(2, signings.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void entryIsCappedAtTheSigningCredentialsExpiry() {
+        // Session credentials rotate in ten minutes: the URL would be left with less than the floor
+        Instant rotating = Instant.now().plusSeconds(600);
+        String first = cache.get("bucket", "a.mp4", 3600, signer(rotating));
+        String second = cache.get("bucket", "a.mp4", 3600, signer(rotating));
+
+        assertNotEquals(first, second);
+        assertEquals(2, signings.get());
+
+        // Credentials that outlive the floor are reused as usual
+        Instant fresh = Instant.now().plusSeconds(6 * 3600);
+        String third = cache.get("bucket", "b.mp4", 3600, signer(fresh));
+        assertEquals(third, cache.get("bucket", "b.mp4", 3600, signer(fresh)));
+        assertEquals(3, signings.get());
+    }
+
+    @Test
+    void overCapacityEvictsSoonestExpiringEntries() {
+        for (int i = 0; i < 10; i++) {
+            cache.get("bucket", i + ".mp4", 3600 + i, signer(null));
+        }
+        cache.get("bucket", "10.mp4", 7200, signer(null));
+
+        assertEquals(9, cache.stats().size());
+        assertEquals(2, cache.stats().evictions());
+
+        // The two shortest-lived entries went, the longest-lived stayed
+        cache.get("bucket", "0.mp4", 3600, signer(null));
+        cache.get("bucket", "10.mp4", 7200, signer(null));
+        assertEquals(12, signings.get());
+    }
+}
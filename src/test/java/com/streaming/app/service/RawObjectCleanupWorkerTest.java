@@ -0,0 +1,116 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.RawObjectCleanup;
+import com.streaming.app.repository.RawObjectCleanupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "cleanup.raw.maxAttempts=2")
+@ActiveProfiles("test")
+class RawObjectCleanupWorkerTest {
+
+    @Autowired
+    private RawObjectCleanupWorker worker;
+
+    @Autowired
+    private RawObjectCleanupRepository cleanupRepository;
+
+    @MockitoBean
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        cleanupRepository.deleteAll();
+    }
+
+    private RawObjectCleanup pending(String key, int attempts, LocalDateTime nextAttemptAt) {
+        return cleanupRepository.save(RawObjectCleanup.builder()
+                .s3Key(key)
+                .attempts(attempts)
+                .nextAttemptAt(nextAttemptAt)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private RawObjectCleanup reload(RawObjectCleanup row) {
+        return cleanupRepository.findById(row.getId()).orElseThrow();
+    }
+
+    @Test
+    void deletesAckedKeysAndRetriesFailedOnes() {
+        RawObjectCleanup ok = pending("raw-videos/1/a.mp4", 0, LocalDateTime.now().minusSeconds(1));
+        RawObjectCleanup denied = pending("raw-videos/2/b.mp4", 0, LocalDateTime.now().minusSeconds(1));
+        when(s3Service.deleteRawFiles(anyList())).thenAnswer(call -> {
+            // The batch is leased and no transaction, connection or row lock is held during the S3 call
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            assertTrue(reload(ok).getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(1)));
+            return Map.of(denied.getS3Key(), "AccessDenied: no");
+        });
+
+        worker.drain();
+
+        assertFalse(cleanupRepository.existsById(ok.getId()));
+        RawObjectCleanup retry = reload(denied);
+        assertEquals(1, retry.getAttempts());
+        assertEquals("AccessDenied: no", retry.getLastError());
+        assertTrue(retry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertTrue(retry.getNextAttemptAt().isBefore(LocalDateTime.now().plusMinutes(1)));
+    }
+
+    @Test
+    void failedCallRetriesTheWholeBatch() {
+        RawObjectCleanup a = pending("raw-videos/1/a.mp4", 0, LocalDateTime.now().minusSeconds(1));
+        RawObjectCleanup b = pending("raw-videos/2/b.mp4", 0, LocalDateTime.now().minusSeconds(1));
+        when(s3Service.deleteRawFiles(anyList())).thenThrow(new IllegalStateException("endpoint unreachable"));
+
+        worker.drain();
+
+        for (RawObjectCleanup row : List.of(reload(a), reload(b))) {
+            assertEquals(1, row.getAttempts());
+            assertEquals("endpoint unreachable", row.getLastError());
+        }
+    }
+
+    @Test
+    void rowsOutOfAttemptsAreSkippedAndPurgedAfterRetention() {
+        RawObjectCleanup recent = pending("raw-videos/1/a.mp4", 2, LocalDateTime.now().minusHours(1));
+        RawObjectCleanup old = pending("raw-videos/2/b.mp4", 2, LocalDateTime.now().minusDays(30));
+        RawObjectCleanup retrying = pending("raw-videos/3/c.mp4", 1, LocalDateTime.now().minusDays(30));
+        when(s3Service.deleteRawFiles(anyList())).thenReturn(Map.of());
+
+        worker.drain();
+        verify(s3Service).deleteRawFiles(List.of(retrying.getS3Key()));
+
+        assertFalse(cleanupRepository.existsById(retrying.getId()));
+
+        worker.purgeDead();
+        assertTrue(cleanupRepository.existsById(recent.getId()));
+        assertFalse(cleanupRepository.existsById(old.getId()));
+    }
+
+    @Test
+    void nothingDueMakesNoS3Call() {
+        pending("raw-videos/1/a.mp4", 0, LocalDateTime.now().plusMinutes(5));
+
+        worker.drain();
+
+        verify(s3Service, never()).deleteRawFiles(anyList());
+    }
+}
@@ -0,0 +1,215 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeTier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqsMessageProducerTest {
+
+    private static final String QUEUE = "https://sqs.us-east-1.amazonaws.com/000000000000/videos";
+
+    private SqsClient sqsClient;
+    private SqsMessageProducer producer;
+    private final List<SendMessageBatchRequest> batches = new CopyOnWriteArrayList<>();
+    private boolean stopped;
+
+    @BeforeEach
+    void setUp() {
+        sqsClient = mock(SqsClient.class);
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenAnswer(call -> SendMessageResponse.builder().messageId("direct").build());
+        producer = new SqsMessageProducer(sqsClient, new SimpleMeterRegistry());
+        for (String field : List.of("interactiveQueueUrl", "standardQueueUrl", "bulkQueueUrl")) {
+            ReflectionTestUtils.setField(producer, field, QUEUE);
+        }
+        ReflectionTestUtils.setField(producer, "interactiveWeight", 6);
+        ReflectionTestUtils.setField(producer, "standardWeight", 3);
+        ReflectionTestUtils.setField(producer, "bulkWeight", 1);
+        ReflectionTestUtils.setField(producer, "lingerMs", 200L);
+        ReflectionTestUtils.setField(producer, "maxInFlight", 1);
+        ReflectionTestUtils.setField(producer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(producer, "queueCapacity", 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (!stopped) {
+            producer.shutdown();
+        }
+    }
+
+    // Every batch call is recorded and answered by {@code answer}
+    private void sqsAnswers(Function<SendMessageBatchRequest, SendMessageBatchResponse> answer) {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(call -> {
+            SendMessageBatchRequest request = call.getArgument(0);
+            batches.add(request);
+            return answer.apply(request);
+        });
+    }
+
+    private static SendMessageBatchResponse accepted(SendMessageBatchRequest request, Set<String> rejectedIds,
+                                                     boolean senderFault) {
+        SendMessageBatchResponse.Builder response = SendMessageBatchResponse.builder();
+        List<SendMessageBatchResultEntry> ok = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        request.entries().forEach(entry -> {
+            if (rejectedIds.contains(entry.id())) {
+                failed.add(BatchResultErrorEntry.builder()
+                        .id(entry.id()).code("InternalError").message("try again").senderFault(senderFault).build());
+            } else {
+                ok.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId("m-" + entry.messageBody()).build());
+            }
+        });
+        return response.successful(ok).failed(failed).build();
+    }
+
+    private CompletableFuture<String> send(long videoId) {
+        return producer.sendVideoForProcessing(videoId, "raw-videos/" + videoId + "/a.mp4", TranscodeTier.STANDARD, "c-1");
+    }
+
+    private static String body(long videoId) {
+        return "{\"videoId\": " + videoId + ", \"s3Key\": \"raw-videos/" + videoId + "/a.mp4\"}";
+    }
+
+    @Test
+    void burstIsSentInBatchesOfTen() throws Exception {
+        sqsAnswers(request -> accepted(request, Set.of(), false));
+        producer.start();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            results.add(send(id));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("m-" + body(i + 1), results.get(i).get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(10, 10, 5), batches.stream().map(b -> b.entries().size()).toList());
+        assertEquals("c-1", batches.get(0).entries().get(0).messageAttributes().values().iterator().next().stringValue());
+        verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+    }
+
+    @Test
+    void rejectedEntryIsRetriedAloneUntilAccepted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        // The second entry of the first batch is rejected once with a server-side fault
+        sqsAnswers(request -> accepted(request, calls.getAndIncrement() == 0 ? Set.of("1") : Set.of(), false));
+        producer.start();
+
+        CompletableFuture<String> first = send(1);
+        CompletableFuture<String> second = send(2);
+
+        assertEquals("m-" + body(1), first.get(5, TimeUnit.SECONDS));
+        assertEquals("m-" + body(2), second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, batches.size());
+        assertEquals(List.of(body(2)), batches.get(1).entries().stream().map(e -> e.messageBody()).toList());
+    }
+
+    @Test
+    void senderFaultIsNotRetried() throws Exception {
+        sqsAnswers(request -> accepted(request, Set.of("0"), true));
+        producer.start();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> send(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void failedCallGivesUpAfterMaxAttempts() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(call -> {
+            batches.add(call.getArgument(0));
+            throw new IllegalStateException("endpoint unreachable");
+        });
+        producer.start();
+
+        assertThrows(ExecutionException.class, () -> send(1).get(5, TimeUnit.SECONDS));
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    void shutdownFlushesBufferedAndRetryingMessages() throws Exception {
+        CountDownLatch firstCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstCall = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        sqsAnswers(request -> {
+            if (calls.getAndIncrement() == 0) {
+                firstCallStarted.countDown();
+                try {
+                    releaseFirstCall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Retryable rejection that is only handled once shutdown has begun
+                return accepted(request, Set.of("0"), false);
+            }
+            return accepted(request, Set.of(), false);
+        });
+        ReflectionTestUtils.setField(producer, "lingerMs", 0L);
+        producer.start();
+
+        CompletableFuture<String> retried = send(1);
+        assertTrue(firstCallStarted.await(5, TimeUnit.SECONDS));
+        // The only send slot is taken, so these wait in the buffer
+        List<CompletableFuture<String>> buffered = List.of(send(2), send(3));
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> {
+            try {
+                producer.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopped = true;
+        Thread.sleep(100);
+        releaseFirstCall.countDown();
+        shutdown.get(15, TimeUnit.SECONDS);
+
+        assertEquals("direct", retried.getNow(null));
+        for (CompletableFuture<String> future : buffered) {
+            assertTrue(future.isDone() && !future.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void sendAfterShutdownGoesDirect() throws Exception {
+        sqsAnswers(request -> accepted(request, Set.of(), false));
+        producer.start();
+        producer.shutdown();
+        stopped = true;
+
+        assertEquals("direct", send(1).get(5, TimeUnit.SECONDS));
+        assertTrue(batches.isEmpty());
+    }
+}
@@ -0,0 +1,161 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeOutbox;
+import com.streaming.app.model.TranscodeTier;
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.TranscodeOutboxRepository;
+import com.streaming.app.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "reaper.maxRetries=1",
+        "reaper.processingTimeoutMinutes=60",
+        "reaper.queuedTimeoutMinutes=360"
+})
+@ActiveProfiles("test")
+class StuckVideoReaperTest {
+
+    @Autowired
+    private StuckVideoReaper reaper;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private TranscodeOutboxRepository outboxRepository;
+
+    @MockitoBean
+    private SqsMessageProducer sqsMessageProducer;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        videoRepository.deleteAll();
+    }
+
+    private Video video(VideoStatus status, LocalDateTime statusUpdatedAt) {
+        Video video = videoService.saveUploadedVideo("clip.mp4", "video/mp4", "tenant-1");
+        video.setStatus(status);
+        video.setStatusUpdatedAt(statusUpdatedAt);
+        return videoRepository.save(video);
+    }
+
+    private Video reload(Video video) {
+        return videoRepository.findById(video.getId()).orElseThrow();
+    }
+
+    private List<TranscodeOutbox> jobs(Video video) {
+        return outboxRepository.findAll().stream().filter(job -> job.getVideoId().equals(video.getId())).toList();
+    }
+
+    private LocalDateTime databaseNow() {
+        return videoRepository.databaseNow();
+    }
+
+    @Test
+    void processingPastDeadlineIsRequeuedThenFailed() {
+        Video stuck = video(VideoStatus.PROCESSING, databaseNow().minusHours(2));
+
+        reaper.reap();
+
+        Video requeued = reload(stuck);
+        assertEquals(VideoStatus.QUEUED, requeued.getStatus());
+        assertEquals(1, requeued.getRetryCount());
+        assertTrue(requeued.getNextRetryAt().isAfter(databaseNow()));
+        assertEquals(1, jobs(stuck).size());
+        assertTrue(jobs(stuck).get(0).getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        // Picked up again and lost again: out of retries
+        requeued.setStatus(VideoStatus.PROCESSING);
+        requeued.setStatusUpdatedAt(databaseNow().minusHours(2));
+        requeued.setNextRetryAt(databaseNow().minusHours(2));
+        videoRepository.save(requeued);
+
+        reaper.reap();
+
+        assertEquals(VideoStatus.FAILED, reload(stuck).getStatus());
+        assertEquals(1, jobs(stuck).size());
+    }
+
+    @Test
+    void heartbeatHoldsOffTheProcessingDeadline() {
+        Video working = video(VideoStatus.PROCESSING, databaseNow().minusHours(2));
+
+        assertTrue(videoService.heartbeat(working.getId()));
+        reaper.reap();
+
+        Video after = reload(working);
+        assertEquals(VideoStatus.PROCESSING, after.getStatus());
+        assertTrue(after.getStatusUpdatedAt().isAfter(databaseNow().minusMinutes(1)));
+        assertTrue(jobs(working).isEmpty());
+    }
+
+    @Test
+    void heartbeatIsIgnoredOutsideProcessing() {
+        Video queued = video(VideoStatus.QUEUED, databaseNow().minusHours(2));
+
+        assertFalse(videoService.heartbeat(queued.getId()));
+        assertEquals(queued.getStatusUpdatedAt(), reload(queued).getStatusUpdatedAt());
+    }
+
+    @Test
+    void processingWithinDeadlineIsLeftAlone() {
+        Video working = video(VideoStatus.PROCESSING, databaseNow().minusMinutes(30));
+
+        reaper.reap();
+
+        assertEquals(VideoStatus.PROCESSING, reload(working).getStatus());
+    }
+
+    @Test
+    void queuedVideoIsOnlyReapedOnceItsMessageIsOld() {
+        Video queued = video(VideoStatus.QUEUED, databaseNow().minusHours(8));
+        TranscodeOutbox job = outboxRepository.save(TranscodeOutbox.builder()
+                .videoId(queued.getId())
+                .s3Key(queued.getS3Key())
+                .tier(TranscodeTier.STANDARD)
+                .createdAt(LocalDateTime.now().minusHours(8))
+                .nextAttemptAt(LocalDateTime.now().minusHours(8))
+                .publishedAt(LocalDateTime.now().minusMinutes(5))
+                .build());
+
+        // Published recently: the queue may just be backlogged
+        reaper.reap();
+        assertEquals(VideoStatus.QUEUED, reload(queued).getStatus());
+        assertEquals(1, jobs(queued).size());
+
+        job.setPublishedAt(LocalDateTime.now().minusHours(7));
+        outboxRepository.save(job);
+
+        reaper.reap();
+        assertEquals(1, reload(queued).getRetryCount());
+        assertEquals(2, jobs(queued).size());
+    }
+
+    @Test
+    void newVideosAreStampedWithTheDatabaseClock() {
+        LocalDateTime before = databaseNow();
+        Video video = videoService.saveUploadedVideo("clip.mp4", "video/mp4", null);
+
+        Video saved = reload(video);
+        assertEquals(saved.getUploadedAt(), saved.getStatusUpdatedAt());
+        assertFalse(saved.getStatusUpdatedAt().isBefore(before));
+        assertFalse(saved.getStatusUpdatedAt().isAfter(databaseNow()));
+    }
+}
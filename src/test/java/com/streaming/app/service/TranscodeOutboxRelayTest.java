@@ -0,0 +1,183 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeOutbox;
+import com.streaming.app.model.TranscodeTier;
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.TranscodeOutboxRepository;
+import com.streaming.app.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "outbox.transcode.maxAttempts=2",
+        "outbox.transcode.publishTimeoutMs=200"
+})
+@ActiveProfiles("test")
+class TranscodeOutboxRelayTest {
+
+    @Autowired
+    private TranscodeOutboxRelay relay;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private TranscodeOutboxRepository outboxRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @MockitoBean
+    private SqsMessageProducer sqsMessageProducer;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+    }
+
+    private Long queuedVideo() {
+        Video video = videoService.saveUploadedVideo("clip.mp4", "video/mp4", null);
+        assertTrue(videoService.queueForProcessing(video.getId(), video.getS3Key(), 1024L));
+        return video.getId();
+    }
+
+    private TranscodeOutbox job(Long videoId) {
+        return outboxRepository.findFirstByVideoIdOrderByIdDesc(videoId).orElseThrow();
+    }
+
+    // Skips the backoff so the next relay() picks the row up again
+    private void makeDue(Long videoId) {
+        TranscodeOutbox row = job(videoId);
+        row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(row);
+    }
+
+    @Test
+    void publishesJobAndRecordsAck() {
+        Long videoId = queuedVideo();
+        when(sqsMessageProducer.sendVideoForProcessing(eq(videoId), any(), any(), any())).thenAnswer(call -> {
+            // No transaction, and so no DB connection or row lock, is held while publishing
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            return CompletableFuture.completedFuture("msg-1");
+        });
+
+        relay.relay();
+
+        TranscodeOutbox row = job(videoId);
+        assertNotNull(row.getPublishedAt());
+        assertEquals("msg-1", row.getMessageId());
+        assertEquals(0, row.getAttempts());
+        verify(sqsMessageProducer).sendVideoForProcessing(eq(videoId), any(), eq(TranscodeTier.INTERACTIVE), any());
+
+        // Published rows are not sent again
+        relay.relay();
+        verify(sqsMessageProducer, times(1)).sendVideoForProcessing(eq(videoId), any(), any(), any());
+    }
+
+    @Test
+    void failedSendIsRetriedAfterBackoff() {
+        Long videoId = queuedVideo();
+        when(sqsMessageProducer.sendVideoForProcessing(eq(videoId), any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("throttled")))
+                .thenReturn(CompletableFuture.completedFuture("msg-2"));
+
+        relay.relay();
+        TranscodeOutbox row = job(videoId);
+        assertNull(row.getPublishedAt());
+        assertEquals(1, row.getAttempts());
+        assertEquals("throttled", row.getLastError());
+        assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        // Still backing off
+        relay.relay();
+        verify(sqsMessageProducer, times(1)).sendVideoForProcessing(eq(videoId), any(), any(), any());
+
+        makeDue(videoId);
+        relay.relay();
+        assertEquals("msg-2", job(videoId).getMessageId());
+        assertEquals(VideoStatus.QUEUED, videoRepository.findById(videoId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void givesUpAndFailsVideoAfterMaxAttempts() {
+        Long videoId = queuedVideo();
+        when(sqsMessageProducer.sendVideoForProcessing(eq(videoId), any(), any(), any()))
+                .thenAnswer(call -> CompletableFuture.failedFuture(new IllegalStateException("queue missing")));
+
+        relay.relay();
+        makeDue(videoId);
+        relay.relay();
+
+        assertEquals(2, job(videoId).getAttempts());
+        assertEquals(VideoStatus.FAILED, videoRepository.findById(videoId).orElseThrow().getStatus());
+
+        makeDue(videoId);
+        relay.relay();
+        verify(sqsMessageProducer, times(2)).sendVideoForProcessing(eq(videoId), any(), any(), any());
+    }
+
+    @Test
+    void slowAckKeepsTheLeaseAndIsRecordedLater() {
+        Long videoId = queuedVideo();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        when(sqsMessageProducer.sendVideoForProcessing(eq(videoId), any(), any(), any())).thenReturn(slow);
+
+        relay.relay();
+        TranscodeOutbox row = job(videoId);
+        assertNull(row.getPublishedAt());
+        assertEquals(0, row.getAttempts());
+        // Leased well past the publish timeout
+        assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(60)));
+
+        // Even once due again, a send that may still land is not repeated
+        makeDue(videoId);
+        relay.relay();
+        verify(sqsMessageProducer, times(1)).sendVideoForProcessing(eq(videoId), any(), any(), any());
+
+        slow.complete("msg-late");
+        relay.relay();
+        assertEquals("msg-late", job(videoId).getMessageId());
+        assertNotNull(job(videoId).getPublishedAt());
+        verify(sqsMessageProducer, times(1)).sendVideoForProcessing(eq(videoId), any(), any(), any());
+    }
+
+    @Test
+    void purgeDropsOldDeadRowsOnly() {
+        Long deadVideo = queuedVideo();
+        TranscodeOutbox dead = job(deadVideo);
+        dead.setAttempts(2);
+        dead.setNextAttemptAt(LocalDateTime.now().minusDays(30));
+        outboxRepository.save(dead);
+
+        Long retryingVideo = queuedVideo();
+        TranscodeOutbox retrying = job(retryingVideo);
+        retrying.setAttempts(1);
+        retrying.setNextAttemptAt(LocalDateTime.now().minusDays(30));
+        outboxRepository.save(retrying);
+
+        relay.purge();
+
+        assertFalse(outboxRepository.existsById(dead.getId()));
+        assertTrue(outboxRepository.existsById(retrying.getId()));
+    }
+}
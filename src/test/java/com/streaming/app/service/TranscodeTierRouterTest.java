@@ -0,0 +1,57 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.TranscodeTier;
+import com.streaming.app.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TranscodeTierRouterTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    private VideoRepository videoRepository;
+    private TranscodeTierRouter router;
+
+    @BeforeEach
+    void setUp() {
+        videoRepository = mock(VideoRepository.class);
+        router = new TranscodeTierRouter(videoRepository);
+        ReflectionTestUtils.setField(router, "interactiveMaxBytes", 256 * MIB);
+        ReflectionTestUtils.setField(router, "tenantBulkThreshold", 20L);
+    }
+
+    @Test
+    void routesBySize() {
+        when(videoRepository.countByTenantInStatuses(eq("t1"), any())).thenReturn(0L);
+
+        assertEquals(TranscodeTier.INTERACTIVE, router.route("t1", 10 * MIB));
+        assertEquals(TranscodeTier.INTERACTIVE, router.route("t1", 256 * MIB));
+        assertEquals(TranscodeTier.STANDARD, router.route("t1", 256 * MIB + 1));
+        // Unknown size can't be assumed small
+        assertEquals(TranscodeTier.STANDARD, router.route("t1", null));
+    }
+
+    @Test
+    void busyTenantIsDemotedToBulk() {
+        when(videoRepository.countByTenantInStatuses(eq("busy"), any())).thenReturn(21L);
+        when(videoRepository.countByTenantInStatuses(eq("edge"), any())).thenReturn(20L);
+
+        assertEquals(TranscodeTier.BULK, router.route("busy", 10 * MIB));
+        assertEquals(TranscodeTier.INTERACTIVE, router.route("edge", 10 * MIB));
+    }
+
+    @Test
+    void uploadsWithoutTenantAreRoutedBySizeOnly() {
+        assertEquals(TranscodeTier.INTERACTIVE, router.route(null, 10 * MIB));
+        assertEquals(TranscodeTier.STANDARD, router.route(" ", 512 * MIB));
+        verifyNoInteractions(videoRepository);
+    }
+}
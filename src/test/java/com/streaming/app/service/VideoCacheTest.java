@@ -0,0 +1,125 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VideoCacheTest {
+
+    private VideoCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new VideoCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "mutableTtlSeconds", 60L);
+    }
+
+    private Function<Long, Optional<Video>> loader(VideoStatus status) {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.of(Video.builder().id(id).status(status).build());
+        };
+    }
+
+    @Test
+    void hitServesSnapshotWithoutLoading() {
+        Video first = cache.get(1L, loader(VideoStatus.UPLOADED)).orElseThrow();
+        Video second = cache.get(1L, loader(VideoStatus.UPLOADED)).orElseThrow();
+
+        assertEquals(1, loads.get());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void missingVideoIsNotCached() {
+        cache.get(1L, id -> Optional.empty());
+
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        // The row changed while it was being read, so the snapshot may predate the change
+        Video loaded = cache.get(1L, id -> {
+            cache.onStatusChanged(new VideoStatusEvent(id, VideoStatus.QUEUED, Instant.now()));
+            return Optional.of(Video.builder().id(id).status(VideoStatus.UPLOADED).build());
+        }).orElseThrow();
+
+        assertEquals(VideoStatus.UPLOADED, loaded.getStatus());
+        assertEquals(0, cache.stats().entries());
+
+        // The next load after the invalidation is cached as usual
+        cache.get(1L, loader(VideoStatus.QUEUED));
+        cache.get(1L, loader(VideoStatus.QUEUED));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void processedVideosNeverExpireButInFlightOnesDo() {
+        ReflectionTestUtils.setField(cache, "mutableTtlSeconds", 0L);
+
+        cache.get(1L, loader(VideoStatus.PROCESSED));
+        cache.get(1L, loader(VideoStatus.PROCESSED));
+        assertEquals(1, loads.get());
+
+        cache.get(2L, loader(VideoStatus.PROCESSING));
+        cache.get(2L, loader(VideoStatus.PROCESSING));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void statusEventDropsTheEntry() {
+        cache.get(1L, loader(VideoStatus.PROCESSED));
+
+        cache.onStatusChanged(new VideoStatusEvent(1L, VideoStatus.FAILED, Instant.now()));
+        Video reloaded = cache.get(1L, loader(VideoStatus.FAILED)).orElseThrow();
+
+        assertEquals(VideoStatus.FAILED, reloaded.getStatus());
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cache.get(1L, loader(VideoStatus.PROCESSED));
+        cache.get(2L, loader(VideoStatus.PROCESSED));
+        cache.get(1L, loader(VideoStatus.PROCESSED));   // 2 is now the eldest
+        cache.get(3L, loader(VideoStatus.PROCESSED));
+
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().entries());
+        assertEquals(3, loads.get());
+
+        cache.get(1L, loader(VideoStatus.PROCESSED));
+        assertEquals(3, loads.get());
+        cache.get(2L, loader(VideoStatus.PROCESSED));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void cachedCopyIsDetachedFromTheLoadedEntity() {
+        Video entity = Video.builder().id(1L).status(VideoStatus.PROCESSED).build();
+        Video cached = cache.get(1L, id -> Optional.of(entity)).orElseThrow();
+
+        entity.setStatus(VideoStatus.FAILED);
+
+        assertNotSame(entity, cached);
+        assertTrue(cache.get(1L, loader(VideoStatus.FAILED)).map(v -> v.getStatus() == VideoStatus.PROCESSED).orElseThrow());
+    }
+}
@@ -0,0 +1,111 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.BulkUploadUrlRequest;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pooled connections with autocommit off, so anything not committed explicitly is rolled back on return
+@SpringBootTest(properties = {
+        "videos.events.notify.enabled=true",
+        "videos.events.notify.reconnectDelayMs=3600000",
+        "spring.datasource.hikari.auto-commit=false",
+        "spring.jpa.properties.hibernate.connection.provider_disables_autocommit=true"
+})
+@ActiveProfiles("test")
+public class VideoEventChannelTest {
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Stands in for Postgres' pg_notify: the row is only visible if the calling transaction commits,
+    // just as a NOTIFY is only delivered on commit. H2 needs the class and method to be public.
+    public static void pgNotify(Connection connection, String channel, String payload) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into test_notifications (channel, payload) values (?, ?)")) {
+            insert.setString(1, channel);
+            insert.setString(2, payload);
+            insert.executeUpdate();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table if not exists test_notifications (channel varchar(64), payload varchar(256))");
+        jdbcTemplate.execute("create alias if not exists pg_notify for \"" + getClass().getName() + ".pgNotify\"");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("delete from test_notifications");
+            videoRepository.deleteAll();
+        });
+    }
+
+    private Long uploadedVideo() {
+        return videoService.saveUploadedVideos(List.of(new BulkUploadUrlRequest.FileDTO("clip.mp4", "video/mp4")),
+                "tenant-1").get(0).getId();
+    }
+
+    private List<String> notifications() {
+        return jdbcTemplate.queryForList("select payload from test_notifications", String.class);
+    }
+
+    @Test
+    void changeInsideTransactionIsNotifiedAfterCommit() {
+        Long id = uploadedVideo();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertTrue(videoService.transition(id, EnumSet.of(VideoStatus.UPLOADED), VideoStatus.QUEUED)));
+
+        List<String> sent = notifications();
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).endsWith(":" + id + ":QUEUED"), sent.get(0));
+    }
+
+    @Test
+    void rolledBackChangeIsNotNotified() {
+        Long id = uploadedVideo();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            videoService.transition(id, EnumSet.of(VideoStatus.UPLOADED), VideoStatus.QUEUED);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(notifications().isEmpty());
+        assertEquals(VideoStatus.UPLOADED, videoRepository.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void changeOutsideTransactionIsNotified() {
+        Long id = uploadedVideo();
+
+        assertTrue(videoService.markAsProcessing(id));
+
+        List<String> sent = notifications();
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).endsWith(":" + id + ":PROCESSING"), sent.get(0));
+    }
+}
@@ -0,0 +1,134 @@
+package com.streaming.app.service;
+
+import com.streaming.app.dto.BulkUploadUrlRequest;
+import com.streaming.app.dto.VideoPageResponse;
+import com.streaming.app.dto.VideoSummaryDTO;
+import com.streaming.app.exception.InvalidCursorException;
+import com.streaming.app.model.Video;
+import com.streaming.app.model.VideoStatus;
+import com.streaming.app.repository.VideoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VideoServiceTest {
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        videoRepository.deleteAll();
+    }
+
+    private List<Video> upload(int count) {
+        List<BulkUploadUrlRequest.FileDTO> files = IntStream.range(0, count)
+                .mapToObj(i -> new BulkUploadUrlRequest.FileDTO("clip-" + i + ".mp4", "video/mp4"))
+                .toList();
+        return videoService.saveUploadedVideos(files, "tenant-1");
+    }
+
+    @Test
+    void keysetPagesVisitEveryRowOnceInOrder() {
+        // One bulk call stamps every row with the same uploadedAt, so the id tie-breaker does the work
+        List<Long> expected = upload(5).stream().map(Video::getId).sorted().toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            VideoPageResponse page = videoService.getVideosByStatus(VideoStatus.UPLOADED, cursor, 2, false);
+            page.getItems().stream().map(VideoSummaryDTO::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void rowsWithoutUploadedAtAreSkippedUntilBackfilled() {
+        List<Video> videos = upload(3);
+        Video legacy = videos.get(1);
+        legacy.setUploadedAt(null);
+        videoRepository.save(legacy);
+
+        VideoPageResponse first = videoService.getVideosByStatus(VideoStatus.UPLOADED, null, 1, false);
+        VideoPageResponse second = videoService.getVideosByStatus(VideoStatus.UPLOADED, first.getNextCursor(), 1, false);
+        assertNull(second.getNextCursor());
+        assertFalse(second.getItems().stream().anyMatch(v -> v.getId().equals(legacy.getId())));
+
+        assertEquals(1, videoRepository.backfillUploadedAt());
+        assertEquals(3, videoService.getVideosByStatus(VideoStatus.UPLOADED, null, 10, false).getItems().size());
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        assertThrows(InvalidCursorException.class,
+                () -> videoService.getVideosByStatus(VideoStatus.UPLOADED, "not-a-cursor", 10, false));
+
+        mockMvc.perform(get("/api/videos/status/UPLOADED").param("cursor", "bnVsbHwx"))   // "null|1"
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void transitionOnlyAppliesFromExpectedStatus() {
+        Long id = upload(1).get(0).getId();
+
+        assertTrue(videoService.transition(id, EnumSet.of(VideoStatus.UPLOADED), VideoStatus.QUEUED));
+        // A second caller racing on the same precondition loses
+        assertFalse(videoService.transition(id, EnumSet.of(VideoStatus.UPLOADED), VideoStatus.QUEUED));
+        assertFalse(videoService.markAsProcessing(id + 1_000));
+
+        assertTrue(videoService.markAsProcessing(id));
+        Video video = videoRepository.findById(id).orElseThrow();
+        assertEquals(VideoStatus.PROCESSING, video.getStatus());
+        assertTrue(video.getStatusUpdatedAt() != null);
+    }
+
+    @Test
+    void bulkUploadBatchesStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        upload(120);
+
+        assertEquals(120, statistics.getEntityInsertCount());
+        // Sequence fetches plus batched INSERT and key UPDATE; one statement per row would be 240+
+        assertTrue(statistics.getPrepareStatementCount() <= 10,
+                "prepared statements: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,186 @@
+package com.streaming.app.service;
+
+import com.streaming.app.controller.VideoRetrievalController;
+import com.streaming.app.dto.VideoStatusEvent;
+import com.streaming.app.model.VideoStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class VideoStatusBroadcasterTest {
+
+    private VideoStatusBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new VideoStatusBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(broadcaster, "bufferSize", 4);
+        ReflectionTestUtils.setField(broadcaster, "replaySize", 3);
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+
+        VideoService videoService = mock(VideoService.class);
+        when(videoService.getVideoStatus(anyLong())).thenReturn(Optional.of(VideoStatus.QUEUED));
+        mockMvc = MockMvcBuilders.standaloneSetup(new VideoRetrievalController(videoService, broadcaster)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private MvcResult open(long videoId, String lastEventId) throws Exception {
+        var request = get("/api/videos/{id}/events", videoId);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private void publish(long videoId, VideoStatus status) {
+        broadcaster.onStatusChanged(new VideoStatusEvent(videoId, status, Instant.now()));
+    }
+
+    private static String body(MvcResult result) throws Exception {
+        return result.getResponse().getContentAsString();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitBody(MvcResult result, String expected) throws InterruptedException {
+        await(() -> {
+            try {
+                return body(result).contains(expected);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void newSubscriberGetsCurrentStatusThenChangesUntilTerminal() throws Exception {
+        broadcaster.start();
+        MvcResult stream = open(1, null);
+        awaitBody(stream, "\"status\":\"QUEUED\"");
+
+        publish(1, VideoStatus.PROCESSING);
+        awaitBody(stream, "id:1\nevent:status\ndata:{\"videoId\":1,\"status\":\"PROCESSING\"");
+
+        publish(1, VideoStatus.PROCESSED);
+        awaitBody(stream, "\"status\":\"PROCESSED\"");
+        await(() -> broadcaster.stats().subscribers() == 0);
+        assertEquals(3, broadcaster.stats().delivered());
+    }
+
+    @Test
+    void lastEventIdReplaysOnlyMissedEvents() throws Exception {
+        broadcaster.start();
+        publish(1, VideoStatus.QUEUED);        // id 1
+        publish(2, VideoStatus.QUEUED);        // id 2, another video
+        publish(1, VideoStatus.PROCESSING);    // id 3
+
+        MvcResult stream = open(1, "1");
+        awaitBody(stream, "id:3\n");
+
+        String received = body(stream);
+        assertFalse(received.contains("\"status\":\"QUEUED\""), received);
+        assertFalse(received.contains("\"videoId\":2"), received);
+    }
+
+    @Test
+    void unresumableLastEventIdFallsBackToCurrentStatus() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 3);
+        broadcaster.start();
+        for (int i = 0; i < 5; i++) {
+            publish(1, i % 2 == 0 ? VideoStatus.QUEUED : VideoStatus.PROCESSING);
+        }
+
+        // The replay log only keeps ids 3-5, and "abc" isn't an id at all
+        for (String lastEventId : new String[] {"1", "abc"}) {
+            MvcResult stream = open(1, lastEventId);
+            awaitBody(stream, "id:5\nevent:status\ndata:{\"videoId\":1,\"status\":\"QUEUED\",\"changedAt\":null}");
+        }
+
+        // A finished video has no replay log; resumers get the status from the database
+        publish(1, VideoStatus.FAILED);
+        assertEquals(0, broadcaster.stats().replayLogs());
+        MvcResult late = open(1, "5");
+        awaitBody(late, "\"changedAt\":null");
+    }
+
+    @Test
+    void subscribersBeyondTheCapGet503() throws Exception {
+        broadcaster.start();
+        open(1, null);
+        open(2, null);
+
+        mockMvc.perform(get("/api/videos/{id}/events", 3L)).andExpect(status().isServiceUnavailable());
+        assertEquals(2, broadcaster.stats().subscribers());
+    }
+
+    @Test
+    void idleStreamsGetHeartbeats() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 1L);
+        broadcaster.start();
+
+        MvcResult stream = open(1, null);
+        awaitBody(stream, ":heartbeat\n");
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDisconnected() throws Exception {
+        broadcaster.start();
+        // Hold the only sender thread so nothing drains
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService senders = (ExecutorService) ReflectionTestUtils.getField(broadcaster, "senders");
+        senders.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        open(1, null);                          // current status: 1 of 4 buffered
+        for (int i = 0; i < 4; i++) {
+            publish(1, VideoStatus.PROCESSING);
+        }
+        release.countDown();
+
+        assertEquals(1, broadcaster.stats().dropped());
+        assertEquals(0, broadcaster.stats().subscribers());
+        assertTrue(broadcaster.stats().replayLogs() > 0);
+    }
+}
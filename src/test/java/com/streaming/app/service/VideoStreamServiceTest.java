@@ -0,0 +1,246 @@
+package com.streaming.app.service;
+
+import com.streaming.app.model.VideoVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VideoStreamServiceTest {
+
+    private static final String KEY = "processed-videos/1/720p.mp4";
+    private static final String ETAG = "\"abc123\"";
+    private static final Instant MODIFIED = Instant.parse("2026-01-02T03:04:05Z");
+    private static final byte[] OBJECT = bytes(100);
+
+    private S3Service s3Service;
+    private HotSegmentCache hotSegmentCache;
+    private VideoStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        s3Service = mock(S3Service.class);
+        hotSegmentCache = mock(HotSegmentCache.class);
+        DiskSegmentCache diskSegmentCache = mock(DiskSegmentCache.class);
+        when(diskSegmentCache.get(anyString())).thenReturn(Optional.empty());
+        when(hotSegmentCache.prefixBytes()).thenReturn(64);
+        when(hotSegmentCache.get(anyString())).thenReturn(Optional.empty());
+        streamService = new VideoStreamService(s3Service, hotSegmentCache, diskSegmentCache);
+        ReflectionTestUtils.setField(streamService, "bufferBytes", 16);
+    }
+
+    // --- ByteRange ---
+
+    @Test
+    void parsesSingleRanges() {
+        assertEquals(new VideoStreamService.ByteRange(0L, 99L), VideoStreamService.ByteRange.parse("bytes=0-99"));
+        assertEquals(new VideoStreamService.ByteRange(100L, null), VideoStreamService.ByteRange.parse("bytes=100-"));
+        assertEquals(new VideoStreamService.ByteRange(null, 500L), VideoStreamService.ByteRange.parse("bytes=-500"));
+    }
+
+    @Test
+    void unsupportedRangesFallBackToFullRepresentation() {
+        assertNull(VideoStreamService.ByteRange.parse(null));
+        assertNull(VideoStreamService.ByteRange.parse("bytes=0-1,5-9"));
+        assertNull(VideoStreamService.ByteRange.parse("bytes=9-1"));
+        assertNull(VideoStreamService.ByteRange.parse("items=0-1"));
+        assertNull(VideoStreamService.ByteRange.parse("bytes=abc-"));
+    }
+
+    @Test
+    void resolvesAgainstObjectSize() {
+        assertArrayEquals(new long[]{90, 99}, VideoStreamService.ByteRange.parse("bytes=-10").resolve(100));
+        assertArrayEquals(new long[]{0, 99}, VideoStreamService.ByteRange.parse("bytes=-500").resolve(100));
+        assertArrayEquals(new long[]{50, 99}, VideoStreamService.ByteRange.parse("bytes=50-1000").resolve(100));
+        assertNull(VideoStreamService.ByteRange.parse("bytes=100-").resolve(100));
+    }
+
+    // --- Cached prefix path ---
+
+    private void cachePrefix() {
+        when(hotSegmentCache.get(KEY)).thenReturn(Optional.of(
+                new HotSegmentCache.Prefix(OBJECT, OBJECT.length, ETAG, MODIFIED, "video/mp4")));
+    }
+
+    private MockHttpServletResponse stream(String range, String ifRange) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        streamService.stream(new VideoVariant("720p", KEY, "video/mp4"), range, ifRange, response);
+        return response;
+    }
+
+    @Test
+    void rangeIsServedAsPartialContent() throws Exception {
+        cachePrefix();
+
+        MockHttpServletResponse response = stream("bytes=10-19", null);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(OBJECT, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws Exception {
+        cachePrefix();
+
+        MockHttpServletResponse response = stream("bytes=200-", null);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void matchingIfRangeKeepsTheRange() throws Exception {
+        cachePrefix();
+
+        assertEquals(206, stream("bytes=0-9", ETAG).getStatus());
+        assertEquals(206, stream("bytes=0-9", httpDate(MODIFIED)).getStatus());
+    }
+
+    @Test
+    void staleOrWeakIfRangeSendsFullObject() throws Exception {
+        cachePrefix();
+
+        for (String ifRange : new String[]{"\"other\"", "W/" + ETAG, httpDate(MODIFIED.minusSeconds(60))}) {
+            MockHttpServletResponse response = stream("bytes=0-9", ifRange);
+            assertEquals(200, response.getStatus(), ifRange);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertArrayEquals(OBJECT, response.getContentAsByteArray());
+        }
+    }
+
+    // --- Direct S3 path (range beyond the cacheable prefix) ---
+
+    private void s3Returns(byte[] body, String contentRange) {
+        GetObjectResponse meta = GetObjectResponse.builder()
+                .contentLength((long) body.length)
+                .contentRange(contentRange)
+                .contentType("video/mp4")
+                .eTag(ETAG)
+                .lastModified(MODIFIED)
+                .build();
+        when(s3Service.getProcessedObject(eq(KEY), any(), any())).thenAnswer(call ->
+                new ResponseInputStream<>(meta, AbortableInputStream.create(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    void strongIfRangeIsPassedToS3AsIfMatch() throws Exception {
+        s3Returns(Arrays.copyOfRange(OBJECT, 80, 100), "bytes 80-99/100");
+
+        MockHttpServletResponse response = stream("bytes=80-", ETAG);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 80-99/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        verify(s3Service).getProcessedObject(eq(KEY), eq("bytes=80-"), eq(ETAG));
+    }
+
+    @Test
+    void weakIfRangeOnS3PathSendsFullObject() throws Exception {
+        s3Returns(OBJECT, null);
+
+        MockHttpServletResponse response = stream("bytes=80-", "W/" + ETAG);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(OBJECT, response.getContentAsByteArray());
+        verify(s3Service).getProcessedObject(eq(KEY), isNull(), isNull());
+    }
+
+    private void s3Has(long size) {
+        when(s3Service.headProcessedObject(KEY)).thenReturn(HeadObjectResponse.builder()
+                .contentLength(size)
+                .eTag(ETAG)
+                .lastModified(MODIFIED)
+                .build());
+    }
+
+    @Test
+    void dateIfRangeMustEqualLastModified() throws Exception {
+        s3Returns(Arrays.copyOfRange(OBJECT, 80, 100), "bytes 80-99/100");
+        s3Has(100);
+
+        // Exact match: the ranged GET is pinned to the version the HEAD saw
+        assertEquals(206, stream("bytes=80-", httpDate(MODIFIED)).getStatus());
+        verify(s3Service).getProcessedObject(eq(KEY), eq("bytes=80-"), eq(ETAG));
+
+        // A later date would satisfy If-Unmodified-Since, but it isn't the client's version
+        s3Returns(OBJECT, null);
+        MockHttpServletResponse response = stream("bytes=80-", httpDate(MODIFIED.plusSeconds(60)));
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(OBJECT, response.getContentAsByteArray());
+        verify(s3Service).getProcessedObject(eq(KEY), isNull(), isNull());
+    }
+
+    @Test
+    void unsatisfiableRangeFromS3CarriesTheObjectSize() throws Exception {
+        when(s3Service.getProcessedObject(eq(KEY), any(), any()))
+                .thenThrow(S3Exception.builder().statusCode(416).message("InvalidRange").build());
+        s3Has(100);
+
+        MockHttpServletResponse response = stream("bytes=200-", null);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void unsatisfiableRangeUsesS3ContentRangeWhenPresent() throws Exception {
+        S3Exception invalidRange = (S3Exception) S3Exception.builder()
+                .statusCode(416)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("InvalidRange")
+                        .sdkHttpResponse(SdkHttpResponse.builder()
+                                .statusCode(416)
+                                .putHeader(HttpHeaders.CONTENT_RANGE, "bytes */100")
+                                .build())
+                        .build())
+                .build();
+        when(s3Service.getProcessedObject(eq(KEY), any(), any())).thenThrow(invalidRange);
+
+        MockHttpServletResponse response = stream("bytes=200-", null);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        verify(s3Service, never()).headProcessedObject(KEY);
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}